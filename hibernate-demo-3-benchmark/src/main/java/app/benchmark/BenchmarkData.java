@@ -0,0 +1,83 @@
+
+package app.benchmark;
+
+/** Generación determinista de datos válidos para los benchmarks */
+public class BenchmarkData {
+
+  /** Letras posibles para el DNI, en orden según el resto del número asociado al DNI entre 23 */
+  private static final char[] DNI_LETTERS = { 'T', 'R', 'W', 'A', 'G', 'M', 'Y', 'F', 'P', 'D', 'X', 'B', 'N', 'J', 'Z', 'S',
+      'Q', 'V', 'H', 'L', 'C', 'K', 'E' };
+
+  /** Resto asociado a la letra K, que StudentValidation no admite */
+  private static final int REJECTED_REMAINDER = 21;
+
+  /** Primer número de teléfono generado */
+  private static final int FIRST_PHONE_NUMBER = 600_000_000;
+
+  /** Constructor privado para evitar instanciación de clase */
+  private BenchmarkData() {
+  }
+
+  /**
+   * Genera un DNI válido distinto para cada índice. Se omiten los números cuya letra sería la K, ya que StudentValidation no
+   * la admite
+   * @param index Índice, entre 0 y 95.000.000
+   * @return String
+   */
+  public static String dni(int index) {
+
+    int remainder = index % (DNI_LETTERS.length - 1);
+    if (remainder >= REJECTED_REMAINDER) {
+      remainder++;
+    }
+
+    int number = index / (DNI_LETTERS.length - 1) * DNI_LETTERS.length + remainder;
+    return String.format("%08d%c", number, DNI_LETTERS[remainder]);
+  }
+
+  /**
+   * Genera un nombre válido (sólo letras y espacios) distinto para cada índice
+   * @param index Índice
+   * @return String
+   */
+  public static String name(int index) {
+    return "Student " + letters(index);
+  }
+
+  /**
+   * Genera un número de teléfono válido distinto para cada índice
+   * @param index Índice, entre 0 y 399.999.999
+   * @return String
+   */
+  public static String phoneNumber(int index) {
+    return Integer.toString(FIRST_PHONE_NUMBER + index);
+  }
+
+  /**
+   * Genera un nombre de curso válido distinto para cada índice
+   * @param index Índice
+   * @return String
+   */
+  public static String courseName(int index) {
+    return "Course " + letters(index);
+  }
+
+  /**
+   * Codifica un índice como una cadena de letras mayúsculas
+   * @param index Índice
+   * @return String
+   */
+  private static String letters(int index) {
+
+    StringBuilder sb = new StringBuilder();
+    int value = index;
+
+    do {
+      sb.append((char) ('A' + value % 26));
+      value /= 26;
+    } while (value > 0);
+
+    return sb.reverse().toString();
+  }
+
+}
@@ -0,0 +1,34 @@
+
+package app.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de los benchmarks. Acepta las mismas opciones que JMH (por ejemplo, {@code -p datasetSize=10000} o un
+ * patrón de benchmarks) y añade siempre el perfilador de GC para informar de la tasa de asignación de memoria
+ */
+public class BenchmarkRunner {
+
+  /** Constructor privado para evitar instanciación de clase */
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Main
+   * @param args Opciones de JMH
+   * @throws CommandLineOptionException En caso de que las opciones no sean válidas
+   * @throws RunnerException            En caso de que ocurra un error durante la ejecución de los benchmarks
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+    new Runner(new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class).build()).run();
+  }
+
+}
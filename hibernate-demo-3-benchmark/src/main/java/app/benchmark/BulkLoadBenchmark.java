@@ -0,0 +1,133 @@
+
+package app.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.entity.Address;
+import app.entity.PhoneNumber;
+import app.entity.Student;
+import app.entity.persistence.AddressPersistence;
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.service.StudentService;
+
+/**
+ * Compara la carga de un lote de estudiantes nuevos (con dirección y número de teléfono) fila a fila, tal y como lo hace
+ * MainApp, frente a la carga por lotes de StudentService.saveStudents
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkLoadBenchmark {
+
+  /** Número de estudiantes que se cargan en cada invocación */
+  @Param({ "200" })
+  private int loadSize;
+
+  /** Servicio a medir */
+  private StudentService studentService;
+
+  /** Índice del primer estudiante de la siguiente carga, para que cada invocación inserte estudiantes nuevos */
+  private int nextIndex;
+
+  /** Estudiantes que se cargarán en la siguiente invocación */
+  private List<Student> students;
+
+  /** Arranca la base de datos */
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    EmbeddedDatabase.start("bulk" + loadSize);
+    studentService = new StudentService(new StudentPersistence(), new CoursePersistence(), new PhoneNumberPersistence(),
+        new AddressPersistence());
+  }
+
+  /** Genera los estudiantes de la siguiente carga */
+  @Setup(Level.Invocation)
+  public void prepareLoad() {
+
+    students = new ArrayList<>(loadSize);
+
+    for (int i = nextIndex; i < nextIndex + loadSize; i++) {
+
+      Student student = new Student();
+      student.setDni(BenchmarkData.dni(i));
+      student.setName(BenchmarkData.name(i));
+      student.setBirthdate(LocalDate.of(2000, 1, 1).plusDays(i % 3650));
+
+      Address address = new Address();
+      address.setStreetAddress("Calle Benchmark " + i);
+      address.setCity("Malaga");
+      address.setPostalCode("29010");
+      student.setAddress(address);
+
+      Set<Student> owners = new HashSet<>();
+      owners.add(student);
+      Set<PhoneNumber> phoneNumbers = new HashSet<>();
+      phoneNumbers.add(new PhoneNumber(BenchmarkData.phoneNumber(i), owners));
+      student.setPhoneNumbers(phoneNumbers);
+
+      students.add(student);
+    }
+
+    nextIndex += loadSize;
+  }
+
+  /** Cierra la base de datos */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    EmbeddedDatabase.stop();
+  }
+
+  /**
+   * Carga fila a fila: una llamada al servicio por estudiante, dirección y número de teléfono
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public void perRowLoop() throws PersistenceException {
+
+    for (Student student : students) {
+      Address address = student.getAddress();
+
+      studentService.saveOrUpdateStudent(student.getDni(), student.getName(), student.getBirthdate());
+      studentService.saveOrUpdateAddress(student.getDni(), address.getStreetAddress(), address.getCity(),
+          address.getPostalCode());
+      studentService.addPhoneNumber(student.getDni(), student.getPhoneNumbers().iterator().next().getNumber());
+    }
+  }
+
+  /**
+   * Carga por lotes en una única transacción
+   * @return List(Integer)
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public List<Integer> saveStudents() throws PersistenceException {
+    return studentService.saveStudents(students);
+  }
+
+}
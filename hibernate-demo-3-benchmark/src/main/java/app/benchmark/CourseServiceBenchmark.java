@@ -0,0 +1,81 @@
+
+package app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.service.CourseService;
+
+/** Benchmarks de las operaciones de CourseService sobre una base de datos embebida con un número dado de cursos */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseServiceBenchmark {
+
+  /** Centro escolar de los cursos generados */
+  private static final String SCHOOL = "IES Benchmark";
+
+  /** Número de cursos almacenados antes de la medición */
+  @Param({ "100", "1000" })
+  private int datasetSize;
+
+  /** Servicio a medir */
+  private CourseService courseService;
+
+  /** Contador de operaciones, usado para alternar entre cursos existentes y nuevos */
+  private int counter;
+
+  /**
+   * Arranca la base de datos y la rellena con cursos
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws PersistenceException {
+
+    EmbeddedDatabase.start("courses" + datasetSize);
+    courseService = new CourseService(new CoursePersistence());
+
+    for (int i = 0; i < datasetSize; i++) {
+      courseService.save(BenchmarkData.courseName(i), SCHOOL, 2000 + i % 30);
+    }
+  }
+
+  /** Cierra la base de datos */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    EmbeddedDatabase.stop();
+  }
+
+  /**
+   * Almacena un curso. Las invocaciones pares actualizan un curso existente y las impares crean uno nuevo
+   * @return Integer
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public Integer save() throws PersistenceException {
+
+    counter++;
+    int index = counter % 2 == 0 ? counter % datasetSize : datasetSize + counter;
+
+    return courseService.save(BenchmarkData.courseName(index), SCHOOL, 2000 + index % 30);
+  }
+
+}
@@ -0,0 +1,70 @@
+
+package app.benchmark;
+
+import java.util.Properties;
+
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.migration.SchemaMigration;
+
+/** Base de datos H2 embebida en memoria, en modo de compatibilidad con MySQL, sobre la que se ejecutan los benchmarks */
+public class EmbeddedDatabase {
+
+  /** Constructor privado para evitar instanciación de clase */
+  private EmbeddedDatabase() {
+  }
+
+  /**
+   * Configura la factoría de sesiones compartida para que utilice una base de datos H2 en memoria nueva
+   * @param name Nombre de la base de datos. Cada nombre distinto da lugar a una base de datos vacía
+   */
+  public static void start(String name) {
+    SessionFactoryProvider.configure(properties(name));
+    SessionFactoryProvider.getSessionFactory();
+  }
+
+  /**
+   * Configura la factoría de sesiones compartida para que utilice dos bases de datos H2 en memoria nuevas: una principal y
+   * una réplica de lectura. Ambas reciben el esquema de las migraciones, pero los datos no se replican, por lo que las
+   * lecturas enviadas a la réplica sólo ven lo que se haya almacenado directamente en ella
+   * @param name        Nombre de la base de datos principal
+   * @param replicaName Nombre de la base de datos de la réplica
+   */
+  public static void startWithReplica(String name, String replicaName) {
+
+    Properties properties = properties(name);
+    Properties replicaProperties = properties(replicaName);
+    replicaProperties.put(SchemaMigration.ENABLED, "true");
+
+    for (String property : replicaProperties.stringPropertyNames()) {
+      properties.put(SessionFactoryProvider.REPLICA_PREFIX + property, replicaProperties.getProperty(property));
+    }
+
+    SessionFactoryProvider.configure(properties);
+    SessionFactoryProvider.getSessionFactory();
+  }
+
+  /** Cierra la factoría de sesiones compartida y con ella la base de datos en memoria */
+  public static void stop() {
+    SessionFactoryProvider.shutdown();
+  }
+
+  /**
+   * Obtiene las propiedades de Hibernate necesarias para apuntar a una base de datos H2 en memoria. El esquema lo crean las
+   * migraciones de hibernate-demo-3, igual que en MySQL
+   * @param name Nombre de la base de datos
+   * @return Properties
+   */
+  public static Properties properties(String name) {
+
+    Properties properties = new Properties();
+    properties.put("hibernate.connection.url", "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    properties.put("hibernate.connection.driver_class", "org.h2.Driver");
+    properties.put("hibernate.connection.username", "sa");
+    properties.put("hibernate.connection.password", "");
+    properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+    properties.put("hibernate.show_sql", "false");
+
+    return properties;
+  }
+
+}
@@ -0,0 +1,180 @@
+
+package app.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.entity.PhoneNumber;
+import app.entity.Student;
+import app.entity.persistence.AddressPersistence;
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.entity.persistence.sql.SqlObserver;
+import app.entity.persistence.sql.SqlStatementStats;
+import app.service.StudentService;
+
+/**
+ * Mide el coste de añadir y eliminar un número de teléfono de un estudiante que ya tiene otros, junto con las sentencias
+ * que llegan a la tabla de unión por operación. Con la relación como conjunto debe ser una por operación,
+ * independientemente de los números que ya tenga el estudiante; con una bolsa serían todas sus filas más dos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhoneNumberAssociationBenchmark {
+
+  /** Tabla de unión entre estudiantes y números de teléfono, tal y como aparece en las sentencias */
+  private static final String JOIN_TABLE = "t_student_phone_number";
+
+  /** Número de estudiantes almacenados antes de la medición */
+  private static final int STUDENTS = 100;
+
+  /** Números de teléfono que tiene cada estudiante antes de la medición */
+  @Param({ "1", "10", "50" })
+  private int phonesPerStudent;
+
+  /** Servicio a medir */
+  private StudentService studentService;
+
+  /** Contador de operaciones, usado para elegir el estudiante */
+  private int counter;
+
+  /**
+   * Sentencias enviadas a la tabla de unión y operaciones ejecutadas. JMH suma ambos contadores en todas las iteraciones
+   * medidas, por lo que su cociente son las sentencias por operación
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class JoinTableStatements {
+
+    /** Sentencias INSERT o DELETE sobre la tabla de unión. Cada fila de un lote cuenta como una sentencia */
+    public long joinTableStatements;
+
+    /** Operaciones ejecutadas (altas y bajas de números de teléfono) */
+    public long operations;
+
+    /** Sentencias sobre la tabla de unión al comenzar la iteración */
+    private long statementsAtStart;
+
+    /** Reinicia los contadores al comenzar la iteración */
+    @Setup(Level.Iteration)
+    public void start() {
+      joinTableStatements = 0;
+      operations = 0;
+      statementsAtStart = joinTableStatements();
+    }
+
+    /** Calcula las sentencias ejecutadas durante la iteración */
+    @TearDown(Level.Iteration)
+    public void stop() {
+      joinTableStatements = joinTableStatements() - statementsAtStart;
+    }
+  }
+
+  /**
+   * Arranca la base de datos y almacena los estudiantes, cada uno con sus números de teléfono
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws PersistenceException {
+
+    EmbeddedDatabase.start("association" + phonesPerStudent);
+
+    studentService = new StudentService(new StudentPersistence(), new CoursePersistence(), new PhoneNumberPersistence(),
+        new AddressPersistence());
+
+    List<Student> students = new ArrayList<>(STUDENTS);
+
+    for (int i = 0; i < STUDENTS; i++) {
+      Student student = new Student();
+      student.setDni(BenchmarkData.dni(i));
+      student.setName(BenchmarkData.name(i));
+      student.setBirthdate(LocalDate.of(2000, 1, 1).plusDays(i));
+
+      Set<Student> owners = new HashSet<>();
+      owners.add(student);
+      Set<PhoneNumber> phoneNumbers = new HashSet<>();
+      for (int j = 0; j < phonesPerStudent; j++) {
+        phoneNumbers.add(new PhoneNumber(BenchmarkData.phoneNumber(i * phonesPerStudent + j), owners));
+      }
+      student.setPhoneNumbers(phoneNumbers);
+
+      students.add(student);
+    }
+
+    studentService.saveStudents(students);
+  }
+
+  /** Cierra la base de datos */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    EmbeddedDatabase.stop();
+  }
+
+  /**
+   * Añade un número de teléfono nuevo a un estudiante y lo vuelve a eliminar, de forma que el estudiante conserva siempre
+   * el mismo número de teléfonos. Cuenta como dos operaciones
+   * @param statements Contador de sentencias sobre la tabla de unión
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public void addAndDeletePhoneNumber(JoinTableStatements statements) throws PersistenceException {
+
+    int index = counter++ % STUDENTS;
+    String dni = BenchmarkData.dni(index);
+    String number = BenchmarkData.phoneNumber(STUDENTS * phonesPerStudent + index);
+
+    studentService.addPhoneNumber(dni, number);
+    studentService.deletePhoneNumber(dni, number);
+    statements.operations += 2;
+  }
+
+  /**
+   * Obtiene las sentencias INSERT y DELETE sobre la tabla de unión ejecutadas desde el arranque de la base de datos
+   * @return long - Cada fila de un lote cuenta como una sentencia
+   */
+  private static long joinTableStatements() {
+
+    SqlObserver observer = SessionFactoryProvider.getSqlObserver();
+    long total = 0;
+
+    if (observer != null) {
+      for (SqlStatementStats stats : observer.snapshot()) {
+
+        String fingerprint = stats.fingerprint().toLowerCase(Locale.ROOT);
+        if (fingerprint.contains(JOIN_TABLE) && (fingerprint.startsWith("insert") || fingerprint.startsWith("delete"))) {
+          total += stats.batchedRows() > 0 ? stats.batchedRows() : stats.executions();
+        }
+      }
+    }
+
+    return total;
+  }
+
+}
@@ -0,0 +1,351 @@
+
+package app.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.StatelessSession;
+
+import app.entity.PhoneNumber;
+import app.entity.Student;
+import app.entity.persistence.AddressPersistence;
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.MetricsRegistry;
+import app.metrics.OperationStats;
+import app.service.StudentService;
+
+/**
+ * Prueba de estrés de la relación entre estudiantes y números de teléfono compartidos sobre una base de datos embebida.
+ * Los estudiantes se agrupan en familias que comparten sus números de teléfono, y varios hilos añaden y eliminan esos
+ * números con {@link StudentService#addPhoneNumber(String, String)} y
+ * {@link StudentService#deletePhoneNumber(String, String)} durante el tiempo indicado.<br>
+ * Cada par (estudiante, número) pertenece a un único hilo, que alterna su estado, por lo que el estado final esperado es
+ * exacto aunque los estudiantes y los números se modifiquen desde varios hilos a la vez. Al terminar se comprueban los
+ * invariantes de la tabla de unión y se informa del rendimiento y de las anomalías encontradas:
+ * <ul>
+ * <li>Filas duplicadas en la tabla de unión</li>
+ * <li>Asociaciones esperadas que faltan, o presentes sin esperarse (escrituras perdidas)</li>
+ * <li>Versiones de estudiante que no coinciden con el número de cambios confirmados</li>
+ * <li>Estudiantes cuyos números leídos a través del servicio (caché de segundo nivel) no coinciden con la DB</li>
+ * </ul>
+ * Uso: {@code java -cp benchmarks.jar app.benchmark.PhoneNumberStress [hilos] [familias] [estudiantesPorFamilia]
+ * [númerosPorFamilia] [segundos]}. El proceso termina con código 1 si encuentra alguna anomalía
+ */
+public class PhoneNumberStress {
+
+  /** Número de hilos por defecto */
+  private static final int DEFAULT_THREADS = 16;
+
+  /** Número de familias por defecto */
+  private static final int DEFAULT_FAMILIES = 50;
+
+  /** Número de estudiantes de cada familia por defecto */
+  private static final int DEFAULT_FAMILY_SIZE = 4;
+
+  /** Número de teléfonos compartidos por cada familia por defecto */
+  private static final int DEFAULT_NUMBERS_PER_FAMILY = 3;
+
+  /** Duración por defecto, en segundos */
+  private static final int DEFAULT_SECONDS = 10;
+
+  /** Semilla de los generadores aleatorios, para que las ejecuciones sean reproducibles */
+  private static final long SEED = 20_260_101L;
+
+  /** Número de hilos */
+  private final int threads;
+
+  /** Número de estudiantes de cada familia */
+  private final int familySize;
+
+  /** Número de teléfonos compartidos por cada familia */
+  private final int numbersPerFamily;
+
+  /** Número total de estudiantes */
+  private final int students;
+
+  /** Pares (estudiante, número) de todas las familias. Cada par es un array {estudiante, número} */
+  private final List<int[]> pairs = new ArrayList<>();
+
+  /** Estado esperado de cada par. Cada posición la modifica únicamente el hilo propietario del par */
+  private final boolean[] expected;
+
+  /** Cambios confirmados sobre cada estudiante */
+  private final AtomicIntegerArray changes;
+
+  /** Operaciones confirmadas */
+  private final LongAdder completed = new LongAdder();
+
+  /** Operaciones fallidas, por tipo de excepción */
+  private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+  /** Servicio de estudiantes */
+  private final StudentService studentService;
+
+  /**
+   * Constructor
+   * @param threads          Número de hilos
+   * @param families         Número de familias
+   * @param familySize       Número de estudiantes de cada familia
+   * @param numbersPerFamily Número de teléfonos compartidos por cada familia
+   */
+  public PhoneNumberStress(int threads, int families, int familySize, int numbersPerFamily) {
+
+    this.threads = threads;
+    this.familySize = familySize;
+    this.numbersPerFamily = numbersPerFamily;
+    this.students = families * familySize;
+
+    // Los pares consecutivos de una familia pertenecen a hilos distintos, que compiten por sus estudiantes y sus números
+    for (int family = 0; family < families; family++) {
+      for (int member = 0; member < familySize; member++) {
+        for (int number = 0; number < numbersPerFamily; number++) {
+          pairs.add(new int[] { family * familySize + member, family * numbersPerFamily + number });
+        }
+      }
+    }
+
+    this.expected = new boolean[pairs.size()];
+    this.changes = new AtomicIntegerArray(students);
+    this.studentService = new StudentService(new StudentPersistence(), new CoursePersistence(),
+        new PhoneNumberPersistence(), new AddressPersistence());
+  }
+
+  /**
+   * Main
+   * @param args Hilos, familias, estudiantes por familia, números por familia y segundos. Todos opcionales
+   * @throws Exception En caso de que ocurra un error durante la preparación o la comprobación de los datos
+   */
+  public static void main(String[] args) throws Exception {
+
+    int threads = intArg(args, 0, DEFAULT_THREADS);
+    int families = intArg(args, 1, DEFAULT_FAMILIES);
+    int familySize = intArg(args, 2, DEFAULT_FAMILY_SIZE);
+    int numbersPerFamily = intArg(args, 3, DEFAULT_NUMBERS_PER_FAMILY);
+    int seconds = intArg(args, 4, DEFAULT_SECONDS);
+
+    EmbeddedDatabase.start("stress");
+
+    try {
+      PhoneNumberStress stress = new PhoneNumberStress(threads, families, familySize, numbersPerFamily);
+      stress.load();
+
+      double elapsedSeconds = stress.run(seconds);
+      long anomalies = stress.report(elapsedSeconds);
+
+      if (anomalies > 0) {
+        System.exit(1);
+      }
+
+    } finally {
+      EmbeddedDatabase.stop();
+    }
+  }
+
+  /**
+   * Almacena los estudiantes, sin números de teléfono
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  private void load() throws PersistenceException {
+
+    List<Student> list = new ArrayList<>(students);
+
+    for (int i = 0; i < students; i++) {
+      Student student = new Student();
+      student.setDni(BenchmarkData.dni(i));
+      student.setName(BenchmarkData.name(i));
+      student.setBirthdate(LocalDate.of(2000, 1, 1).plusDays(i % 3650));
+      list.add(student);
+    }
+
+    studentService.saveStudents(list);
+    MetricsRegistry.reset();
+  }
+
+  /**
+   * Ejecuta los hilos durante el tiempo indicado
+   * @param seconds Duración, en segundos
+   * @return double - Duración real, en segundos
+   * @throws Exception En caso de que algún hilo termine con un error inesperado
+   */
+  private double run(int seconds) throws Exception {
+
+    System.out.printf("Hilos: %d, estudiantes: %d, familias de %d estudiantes con %d números, pares: %d, duración: %d s%n",
+        threads, students, familySize, numbersPerFamily, pairs.size(), seconds);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>(threads);
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+
+    for (int thread = 0; thread < threads; thread++) {
+      int owner = thread;
+      futures.add(executor.submit(() -> work(owner, deadline)));
+    }
+
+    for (Future<?> future : futures) {
+      future.get();
+    }
+
+    executor.shutdown();
+    return (System.nanoTime() - start) / 1_000_000_000.0;
+  }
+
+  /**
+   * Alterna el estado de pares aleatorios del hilo hasta alcanzar el plazo
+   * @param owner    Hilo
+   * @param deadline Plazo, en nanosegundos
+   */
+  private void work(int owner, long deadline) {
+
+    List<Integer> owned = new ArrayList<>();
+    for (int pair = owner; pair < pairs.size(); pair += threads) {
+      owned.add(pair);
+    }
+
+    if (owned.isEmpty()) {
+      return;
+    }
+
+    SplittableRandom random = new SplittableRandom(SEED + owner);
+
+    while (System.nanoTime() < deadline) {
+
+      int pair = owned.get(random.nextInt(owned.size()));
+      int student = pairs.get(pair)[0];
+      String dni = BenchmarkData.dni(student);
+      String number = BenchmarkData.phoneNumber(pairs.get(pair)[1]);
+
+      try {
+        if (expected[pair]) {
+          studentService.deletePhoneNumber(dni, number);
+
+        } else {
+          studentService.addPhoneNumber(dni, number);
+        }
+
+        expected[pair] = !expected[pair];
+        changes.incrementAndGet(student);
+        completed.increment();
+
+      } catch (PersistenceException | RuntimeException e) {
+        failures.computeIfAbsent(e.getClass().getSimpleName(), key -> new LongAdder()).increment();
+      }
+    }
+  }
+
+  /**
+   * Comprueba los invariantes e informa del resultado
+   * @param elapsedSeconds Duración real, en segundos
+   * @return long - Número total de anomalías
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  private long report(double elapsedSeconds) throws PersistenceException {
+
+    // Filas de la tabla de unión y versiones de los estudiantes, leídas directamente de la DB
+    Map<String, List<String>> rows = new HashMap<>();
+    Map<String, Integer> versions = new HashMap<>();
+
+    try (StatelessSession session = SessionFactoryProvider.getSessionFactory().openStatelessSession()) {
+
+      for (Object[] row : session.createQuery("SELECT s.dni, p.number FROM Student s JOIN s.phoneNumbers p", Object[].class)
+          .list()) {
+        rows.computeIfAbsent((String) row[0], key -> new ArrayList<>()).add((String) row[1]);
+      }
+
+      for (Object[] row : session.createQuery("SELECT s.dni, s.version FROM Student s", Object[].class).list()) {
+        versions.put((String) row[0], (Integer) row[1]);
+      }
+    }
+
+    long duplicates = 0;
+    long missing = 0;
+    long unexpected = 0;
+    long versionMismatches = 0;
+    long staleCache = 0;
+
+    for (List<String> numbers : rows.values()) {
+      duplicates += numbers.size() - numbers.stream().distinct().count();
+    }
+
+    for (int pair = 0; pair < pairs.size(); pair++) {
+
+      boolean present = rows.getOrDefault(BenchmarkData.dni(pairs.get(pair)[0]), List.of())
+          .contains(BenchmarkData.phoneNumber(pairs.get(pair)[1]));
+
+      if (expected[pair] && !present) {
+        missing++;
+
+      } else if (!expected[pair] && present) {
+        unexpected++;
+      }
+    }
+
+    for (int student = 0; student < students; student++) {
+      if (versions.getOrDefault(BenchmarkData.dni(student), -1) != changes.get(student)) {
+        versionMismatches++;
+      }
+    }
+
+    // Números de cada estudiante leídos a través del servicio, que pueden venir de la caché de segundo nivel
+    for (Student student : studentService.getAll()) {
+
+      List<String> cached = new ArrayList<>();
+      for (PhoneNumber phoneNumber : student.getPhoneNumbers()) {
+        cached.add(phoneNumber.getNumber());
+      }
+
+      List<String> stored = new ArrayList<>(rows.getOrDefault(student.getDni(), List.of()));
+      cached.sort(null);
+      stored.sort(null);
+
+      if (!cached.equals(stored)) {
+        staleCache++;
+      }
+    }
+
+    long failed = failures.values().stream().mapToLong(LongAdder::sum).sum();
+
+    System.out.printf("Operaciones confirmadas: %d (%.1f ops/s), fallidas: %d %s%n", completed.sum(),
+        completed.sum() / elapsedSeconds, failed, failures);
+
+    for (OperationStats stats : MetricsRegistry.getOperations()) {
+      if (stats.name().equals("StudentService.addPhoneNumber") || stats.name().equals("StudentService.deletePhoneNumber")) {
+        System.out.println(stats);
+      }
+    }
+
+    System.out.printf("Anomalías - Filas duplicadas: %d, asociaciones perdidas: %d, asociaciones inesperadas: %d, "
+        + "versiones incorrectas: %d, estudiantes con caché obsoleta: %d%n", duplicates, missing, unexpected,
+        versionMismatches, staleCache);
+
+    return duplicates + missing + unexpected + versionMismatches + staleCache;
+  }
+
+  /**
+   * Obtiene un argumento numérico
+   * @param args         Argumentos
+   * @param index        Posición del argumento
+   * @param defaultValue Valor por defecto
+   * @return int - Será defaultValue si el argumento no se indica
+   */
+  private static int intArg(String[] args, int index, int defaultValue) {
+    return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+  }
+
+}
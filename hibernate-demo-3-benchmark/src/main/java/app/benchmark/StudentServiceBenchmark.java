@@ -0,0 +1,176 @@
+
+package app.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.entity.Student;
+import app.entity.persistence.AddressPersistence;
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.service.CourseService;
+import app.service.StudentService;
+
+/** Benchmarks de las operaciones de StudentService sobre una base de datos embebida con un número dado de estudiantes */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentServiceBenchmark {
+
+  /** Centro escolar de los cursos generados */
+  private static final String SCHOOL = "IES Benchmark";
+
+  /** Año de comienzo de los cursos generados */
+  private static final int STARTING_YEAR = 2026;
+
+  /** Número de cursos generados */
+  private static final int COURSES = 10;
+
+  /** Número de estudiantes almacenados antes de la medición */
+  @Param({ "100", "1000" })
+  private int datasetSize;
+
+  /** Servicio a medir */
+  private StudentService studentService;
+
+  /** Contador de operaciones, usado para elegir el estudiante y generar números de teléfono nuevos */
+  private int counter;
+
+  /** DNIs de todos los estudiantes almacenados */
+  private List<String> dnis;
+
+  /**
+   * Arranca la base de datos y la rellena con estudiantes, direcciones, números de teléfono y cursos
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws PersistenceException {
+
+    EmbeddedDatabase.start("students" + datasetSize);
+
+    CoursePersistence cPersistence = new CoursePersistence();
+    studentService = new StudentService(new StudentPersistence(), cPersistence, new PhoneNumberPersistence(),
+        new AddressPersistence());
+    CourseService courseService = new CourseService(cPersistence);
+
+    for (int i = 0; i < COURSES; i++) {
+      courseService.save(BenchmarkData.courseName(i), SCHOOL, STARTING_YEAR);
+    }
+
+    dnis = new ArrayList<>(datasetSize);
+
+    for (int i = 0; i < datasetSize; i++) {
+      String dni = BenchmarkData.dni(i);
+      studentService.saveOrUpdateStudent(dni, BenchmarkData.name(i), LocalDate.of(2000, 1, 1).plusDays(i % 3650));
+      studentService.saveOrUpdateAddress(dni, "Calle Benchmark " + i, "Malaga", "29010");
+      studentService.addPhoneNumber(dni, BenchmarkData.phoneNumber(i));
+      dnis.add(dni);
+    }
+
+    // Todos los estudiantes comienzan en el primer curso, del que parten los traslados
+    studentService.enroll(dnis, BenchmarkData.courseName(0), SCHOOL, STARTING_YEAR);
+
+    counter = datasetSize;
+  }
+
+  /** Cierra la base de datos */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    EmbeddedDatabase.stop();
+  }
+
+  /**
+   * Actualiza la fecha de nacimiento de un estudiante existente
+   * @return Integer
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public Integer saveOrUpdateStudent() throws PersistenceException {
+    int index = nextStudent();
+    return studentService.saveOrUpdateStudent(BenchmarkData.dni(index), BenchmarkData.name(index),
+        LocalDate.of(1990, 1, 1).plusDays(counter % 3650));
+  }
+
+  /**
+   * Añade un número de teléfono nuevo a un estudiante existente
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public void addPhoneNumber() throws PersistenceException {
+    studentService.addPhoneNumber(BenchmarkData.dni(nextStudent()), BenchmarkData.phoneNumber(counter));
+  }
+
+  /**
+   * Asigna un curso existente a un estudiante existente
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public void setCourse() throws PersistenceException {
+    studentService.setCourse(BenchmarkData.dni(nextStudent()), BenchmarkData.courseName(counter % COURSES), SCHOOL,
+        STARTING_YEAR);
+  }
+
+  /**
+   * Matricula a todos los estudiantes en uno de los dos primeros cursos, alternándolos, de forma que todos cambian de curso
+   * @return int - Número de estudiantes cuyo curso ha cambiado
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public int enroll() throws PersistenceException {
+    return studentService.enroll(dnis, BenchmarkData.courseName(++counter % 2), SCHOOL, STARTING_YEAR);
+  }
+
+  /**
+   * Traslada todos los estudiantes entre los dos primeros cursos, alternando el sentido
+   * @return int - Número de estudiantes trasladados
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public int transferAll() throws PersistenceException {
+
+    int from = counter++ % 2;
+    return studentService.transferAll(BenchmarkData.courseName(from), SCHOOL, STARTING_YEAR,
+        BenchmarkData.courseName(1 - from), SCHOOL, STARTING_YEAR);
+  }
+
+  /**
+   * Obtiene todos los estudiantes
+   * @return List(Student)
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  @Benchmark
+  public List<Student> getAll() throws PersistenceException {
+    return studentService.getAll();
+  }
+
+  /**
+   * Avanza el contador de operaciones y devuelve el índice de un estudiante existente
+   * @return int
+   */
+  private int nextStudent() {
+    counter++;
+    return counter % datasetSize;
+  }
+
+}
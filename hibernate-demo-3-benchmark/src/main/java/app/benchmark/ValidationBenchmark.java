@@ -0,0 +1,116 @@
+
+package app.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.entity.Address;
+import app.entity.PhoneNumber;
+import app.entity.Student;
+import app.service.validation.AddressValidation;
+import app.service.validation.BulkValidation;
+import app.service.validation.PhoneNumberValidation;
+import app.service.validation.StudentValidation;
+import app.service.validation.ValidationResult;
+
+/** Benchmarks de las validaciones de atributos, individuales y por lotes. No requieren base de datos */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+  /** Número de estudiantes del lote */
+  @Param({ "10000" })
+  private int batchSize;
+
+  /** Lote de estudiantes válidos, con dirección y número de teléfono */
+  private List<Student> students;
+
+  /** Contador de operaciones, usado para alternar entre valores */
+  private int counter;
+
+  /** Genera el lote de estudiantes */
+  @Setup
+  public void setUp() {
+
+    students = new ArrayList<>(batchSize);
+
+    for (int i = 0; i < batchSize; i++) {
+
+      Student student = new Student();
+      student.setDni(BenchmarkData.dni(i));
+      student.setName(BenchmarkData.name(i));
+      student.setBirthdate(LocalDate.of(2000, 1, 1));
+
+      Address address = new Address();
+      address.setStreetAddress("Calle Benchmark " + i);
+      address.setCity("Malaga");
+      address.setPostalCode("29010");
+      student.setAddress(address);
+
+      Set<PhoneNumber> phoneNumbers = new HashSet<>();
+      phoneNumbers.add(new PhoneNumber(BenchmarkData.phoneNumber(i), new HashSet<>()));
+      student.setPhoneNumbers(phoneNumbers);
+
+      students.add(student);
+    }
+  }
+
+  /**
+   * Valida un DNI
+   * @return boolean
+   */
+  @Benchmark
+  public boolean dni() {
+    return StudentValidation.isValidDni(students.get(counter++ % batchSize).getDni());
+  }
+
+  /**
+   * Valida un número de teléfono
+   * @return boolean
+   */
+  @Benchmark
+  public boolean phoneNumber() {
+    PhoneNumber phoneNumber = students.get(counter++ % batchSize).getPhoneNumbers().iterator().next();
+    return PhoneNumberValidation.isValidNumber(phoneNumber.getNumber());
+  }
+
+  /**
+   * Valida un código postal
+   * @return boolean
+   */
+  @Benchmark
+  public boolean postalCode() {
+    return AddressValidation.isValidPostalCode(students.get(counter++ % batchSize).getAddress().getPostalCode());
+  }
+
+  /**
+   * Valida el lote completo
+   * @return List(ValidationResult)
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<ValidationResult> batch() {
+    return BulkValidation.validateStudents(students);
+  }
+
+}
@@ -4,8 +4,6 @@ package app;
 import java.time.LocalDate;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,12 +11,16 @@ import app.entity.Student;
 import app.entity.persistence.AddressPersistence;
 import app.entity.persistence.CoursePersistence;
 import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.SessionFactoryProvider;
 import app.entity.persistence.StudentPersistence;
 import app.entity.persistence.exceptions.PersistenceException;
 import app.service.CourseService;
 import app.service.StudentService;
 
-/** Aplicación principal */
+/**
+ * Aplicación principal: recorre las operaciones de los servicios sobre dos estudiantes y muestra el resultado en el log. Para
+ * medir el rendimiento bajo carga debe usarse {@link app.load.LoadDriver}
+ */
 public class MainApp {
 
   /** Logger */
@@ -48,6 +50,9 @@ public class MainApp {
   /** Nombre del segundo centro escolar */
   private static final String SCHOOL2 = "CES San Jose";
 
+  /** Número de estudiantes que se leen en cada página */
+  private static final int PAGE_SIZE = 20;
+
   /**
    * Main
    * @param args Argumentos
@@ -110,39 +115,45 @@ public class MainApp {
       showStudents(studentService);
 
     } catch (ExceptionInInitializerError e) {
-      JOptionPane.showMessageDialog(null, "Error durante la creación de los sistemas de persistencia" + e.getMessage());
-      LOGGER.debug(e.getMessage());
+      LOGGER.error("Error durante la creación de los sistemas de persistencia", e);
 
     } catch (IllegalArgumentException e) {
-      JOptionPane.showMessageDialog(null,
-          "Alguno de los atributos que se ha intentado usar no es válido o no existe en la DB");
-      LOGGER.debug(e.getMessage());
+      LOGGER.error("Alguno de los atributos que se ha intentado usar no es válido o no existe en la DB", e);
 
     } catch (PersistenceException e) {
-      JOptionPane.showMessageDialog(null, "Error durante el almacenamiento");
-      LOGGER.debug(e.getMessage());
+      LOGGER.error("Error durante el almacenamiento", e);
 
     } catch (Exception e) {
-      JOptionPane.showMessageDialog(null, "Ocurrió un error inesperado");
-      LOGGER.debug(e.getMessage());
+      LOGGER.error("Ocurrió un error inesperado", e);
+
+    } finally {
+      // Se cierra la factoría de sesiones compartida
+      SessionFactoryProvider.shutdown();
     }
 
   }
 
   /**
-   * Muestra todos los estudiantes almacenados junto con sus atributos
+   * Muestra en el log todos los estudiantes almacenados junto con sus atributos, en páginas de {@value #PAGE_SIZE} estudiantes
    * @param studentService Servicio de gestión de estudiantes
    * @throws PersistenceException En caso de problema con el sistema de almacenamiento
    */
   private static void showStudents(StudentService studentService) throws PersistenceException {
 
-    List<Student> students = studentService.getAll();
-    StringBuilder sb = new StringBuilder("Estudiantes:\n");
-    for (Student st : students) {
-      sb.append(st + "\n");
-    }
+    List<Student> students = studentService.getPage(null, PAGE_SIZE);
 
-    JOptionPane.showMessageDialog(null, sb.toString());
+    while (!students.isEmpty()) {
+
+      StringBuilder sb = new StringBuilder("Estudiantes:\n");
+      for (Student st : students) {
+        sb.append(st + "\n");
+      }
+
+      LOGGER.info(sb.toString());
+
+      // Se obtiene la siguiente página a partir del último estudiante mostrado
+      students = studentService.getPage(students.get(students.size() - 1).getId(), PAGE_SIZE);
+    }
   }
 
 }
@@ -0,0 +1,403 @@
+
+package app.dataset;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import com.github.javafaker.Faker;
+
+import app.entity.Address;
+import app.entity.Course;
+import app.entity.PhoneNumber;
+import app.entity.Student;
+
+/**
+ * Generador de conjuntos de datos sintéticos: estudiantes con dirección, números de teléfono y curso, y los cursos de varios
+ * centros escolares. Todos los datos generados superan las validaciones del servicio y respetan las claves únicas del
+ * esquema (DNI, número de teléfono, dirección y curso).<br>
+ * Los nombres, ciudades, calles, centros y cursos proceden de JavaFaker. Para no pagar su coste en cada estudiante, se
+ * extrae de él un vocabulario al crear el generador y los estudiantes se componen a partir de ese vocabulario. El resultado
+ * depende únicamente de la semilla y de los parámetros, por lo que los bloques de estudiantes pueden generarse en paralelo
+ * y en cualquier orden. Los DNIs y los números de teléfono se obtienen aplicando al índice del estudiante una permutación
+ * derivada de la semilla: son únicos dentro del conjunto, pero dos conjuntos con distinta semilla pueden coincidir, por lo
+ * que cada conjunto debe cargarse sobre un esquema vacío
+ */
+public final class DatasetGenerator {
+
+  /** Número máximo de estudiantes. Es el número de DNIs válidos que pueden generarse por debajo de 99.999.999 */
+  public static final long MAX_STUDENTS = 95_000_000;
+
+  /** Letras del DNI, en orden según el resto de su número entre 23 */
+  private static final char[] DNI_LETTERS = { 'T', 'R', 'W', 'A', 'G', 'M', 'Y', 'F', 'P', 'D', 'X', 'B', 'N', 'J', 'Z', 'S',
+      'Q', 'V', 'H', 'L', 'C', 'K', 'E' };
+
+  /** Resto entre 23 que corresponde a la letra K, que no se admite en un DNI. Los números con ese resto no se generan */
+  private static final int REJECTED_DNI_REMAINDER = 21;
+
+  /** Primer número de teléfono móvil */
+  private static final long FIRST_MOBILE_NUMBER = 600_000_000;
+
+  /** Números de teléfono móvil disponibles (empiezan por 6 o 7) */
+  private static final long MOBILE_NUMBERS = 200_000_000;
+
+  /** Primer número de teléfono fijo */
+  private static final long FIRST_LANDLINE_NUMBER = 900_000_000;
+
+  /** Números de teléfono fijo disponibles (empiezan por 9) */
+  private static final long LANDLINE_NUMBERS = 100_000_000;
+
+  /** Número de entradas que se extraen de JavaFaker para cada parte del vocabulario */
+  private static final int VOCABULARY_SIZE = 2_000;
+
+  /** Intentos de extraer de JavaFaker un valor que no se haya obtenido ya antes de darse por completo el vocabulario */
+  private static final int VOCABULARY_ATTEMPTS = VOCABULARY_SIZE * 10;
+
+  /** Fecha de nacimiento más antigua */
+  private static final LocalDate FIRST_BIRTHDATE = LocalDate.of(1995, 1, 1);
+
+  /** Días entre la fecha de nacimiento más antigua y la más reciente */
+  private static final int BIRTHDATE_DAYS = 20 * 365;
+
+  /** Número de portal máximo de las direcciones */
+  private static final int MAX_STREET_NUMBER = 200;
+
+  /** Número de provincias, que dan el prefijo del código postal (de 01 a 52) */
+  private static final int PROVINCES = 52;
+
+  /** Longitud máxima del nombre de una ciudad */
+  private static final int CITY_MAX_LENGTH = 50;
+
+  /** Longitud máxima del nombre de un curso y de un centro escolar */
+  private static final int COURSE_MAX_LENGTH = 80;
+
+  /** Semilla */
+  private final long seed;
+
+  /** Probabilidad de que un estudiante comparta hogar, y con él un teléfono fijo, con el estudiante anterior */
+  private final double phoneShareRatio;
+
+  /** Nombres de pila */
+  private final List<String> firstNames;
+
+  /** Apellidos */
+  private final List<String> lastNames;
+
+  /** Ciudades */
+  private final List<String> cities;
+
+  /** Calles */
+  private final List<String> streets;
+
+  /** Permutación de los índices de los estudiantes a los números de su DNI */
+  private final Permutation dniPermutation;
+
+  /** Permutación de los índices de los estudiantes a sus números de teléfono móvil */
+  private final Permutation mobilePermutation;
+
+  /** Permutación de los índices de los estudiantes a los números de teléfono fijo de los hogares que crean */
+  private final Permutation landlinePermutation;
+
+  /**
+   * Constructor. Extrae el vocabulario de JavaFaker, por lo que conviene crear un único generador y compartirlo
+   * @param seed            Semilla
+   * @param phoneShareRatio Probabilidad, entre 0 y 1, de que un estudiante comparta hogar con el anterior. Los estudiantes
+   *                        de un mismo hogar comparten un teléfono fijo, además de tener cada uno su móvil
+   * @throws IllegalArgumentException Si la probabilidad no está entre 0 y 1
+   */
+  public DatasetGenerator(long seed, double phoneShareRatio) {
+
+    if (!(phoneShareRatio >= 0 && phoneShareRatio <= 1)) {
+      throw new IllegalArgumentException("La proporción de teléfonos compartidos debe estar entre 0 y 1");
+    }
+
+    this.seed = seed;
+    this.phoneShareRatio = phoneShareRatio;
+
+    Faker faker = new Faker(Locale.of("es"), new Random(seed));
+    firstNames = vocabulary(() -> toName(faker.name().firstName()));
+    lastNames = vocabulary(() -> toName(faker.name().lastName()));
+    cities = vocabulary(() -> truncate(faker.address().city(), CITY_MAX_LENGTH));
+    streets = vocabulary(() -> faker.address().streetName());
+
+    SplittableRandom random = new SplittableRandom(seed);
+    dniPermutation = Permutation.random(MAX_STUDENTS, random);
+    mobilePermutation = Permutation.random(MOBILE_NUMBERS, random);
+    landlinePermutation = Permutation.random(LANDLINE_NUMBERS, random);
+  }
+
+  /**
+   * Genera los cursos de varios centros escolares, todos con el mismo año de comienzo. Los nombres de los cursos no se
+   * repiten dentro de un mismo centro
+   * @param schools          Número de centros escolares
+   * @param coursesPerSchool Número de cursos de cada centro
+   * @param startingYear     Año de comienzo de los cursos
+   * @return List(Course) - Cursos sin almacenar, agrupados por centro
+   */
+  public List<Course> generateCourses(int schools, int coursesPerSchool, int startingYear) {
+
+    Faker faker = new Faker(Locale.of("es"), new Random(seed));
+    List<Course> courses = new ArrayList<>(schools * coursesPerSchool);
+    Set<String> schoolNames = new HashSet<>();
+
+    for (int i = 0; i < schools; i++) {
+
+      String school = unique(schoolNames, truncate("IES " + faker.address().city(), COURSE_MAX_LENGTH - 4));
+      Set<String> courseNames = new HashSet<>();
+
+      for (int j = 0; j < coursesPerSchool; j++) {
+
+        Course course = new Course();
+        course.setName(unique(courseNames, truncate(faker.educator().course(), COURSE_MAX_LENGTH - 4)));
+        course.setSchool(school);
+        course.setStartingYear(startingYear);
+        courses.add(course);
+      }
+    }
+
+    return courses;
+  }
+
+  /**
+   * Genera un bloque de estudiantes consecutivos, cada uno con su dirección, su teléfono móvil y, si comparte hogar con el
+   * anterior del bloque, el teléfono fijo del hogar. El mismo bloque (mismo índice inicial y tamaño) genera siempre los
+   * mismos estudiantes, independientemente de los bloques generados antes o en paralelo
+   * @param firstIndex Índice del primer estudiante del bloque, desde 0
+   * @param count      Número de estudiantes del bloque
+   * @param courses    Cursos entre los que se reparten los estudiantes. Si está vacía, no se les asigna curso
+   * @return List(Student) - Estudiantes sin almacenar. Los de un mismo hogar comparten la instancia de su teléfono fijo
+   * @throws IllegalArgumentException Si el bloque supera el número máximo de estudiantes
+   */
+  public List<Student> generateStudents(long firstIndex, int count, List<Course> courses) {
+
+    if (firstIndex < 0 || count < 0 || firstIndex + count > MAX_STUDENTS) {
+      throw new IllegalArgumentException("El bloque debe estar entre 0 y " + MAX_STUDENTS + " estudiantes");
+    }
+
+    SplittableRandom random = new SplittableRandom(seed ^ firstIndex * 0x9E3779B97F4A7C15L);
+    List<Student> students = new ArrayList<>(count);
+
+    Student previous = null;
+    PhoneNumber landline = null;
+
+    for (long index = firstIndex; index < firstIndex + count; index++) {
+
+      Student student = new Student();
+      student.setDni(dni(index));
+      student.setName(pick(firstNames, random) + " " + pick(lastNames, random) + " " + pick(lastNames, random));
+      student.setBirthdate(FIRST_BIRTHDATE.plusDays(random.nextInt(BIRTHDATE_DAYS)));
+      student.setAddress(address(index, random));
+      student.setPhoneNumbers(new LinkedHashSet<>());
+
+      if (!courses.isEmpty()) {
+        student.setCourse(courses.get(random.nextInt(courses.size())));
+      }
+
+      student.getPhoneNumbers().add(phoneNumber(FIRST_MOBILE_NUMBER + mobilePermutation.apply(index), student));
+
+      // El estudiante se une al hogar del anterior, que crea su teléfono fijo si aún no lo tenía. Sino, abre uno nuevo
+      if (previous != null && random.nextDouble() < phoneShareRatio) {
+
+        if (landline == null) {
+          landline = phoneNumber(FIRST_LANDLINE_NUMBER + landlinePermutation.apply(index), previous);
+          previous.getPhoneNumbers().add(landline);
+        }
+
+        landline.getStudents().add(student);
+        student.getPhoneNumbers().add(landline);
+
+      } else {
+        landline = null;
+      }
+
+      students.add(student);
+      previous = student;
+    }
+
+    return students;
+  }
+
+  /**
+   * Obtiene el DNI del estudiante con el índice dado
+   * @param index Índice del estudiante
+   * @return String
+   */
+  private String dni(long index) {
+
+    // Se salta el resto que corresponde a la letra K: por cada 23 números consecutivos se usan los 22 restantes
+    long valid = dniPermutation.apply(index);
+    long remainder = valid % (DNI_LETTERS.length - 1);
+    long number = valid / (DNI_LETTERS.length - 1) * DNI_LETTERS.length + remainder
+        + (remainder >= REJECTED_DNI_REMAINDER ? 1 : 0);
+
+    return String.format("%08d%c", number, DNI_LETTERS[(int) (number % DNI_LETTERS.length)]);
+  }
+
+  /**
+   * Genera la dirección del estudiante con el índice dado. La puerta es el propio índice, por lo que no se repite
+   * @param index  Índice del estudiante
+   * @param random Generador de números aleatorios del bloque
+   * @return Address
+   */
+  private Address address(long index, SplittableRandom random) {
+
+    Address address = new Address();
+    address.setStreetAddress(
+        String.format("%s %d, puerta %d", pick(streets, random), 1 + random.nextInt(MAX_STREET_NUMBER), index + 1));
+    address.setCity(pick(cities, random));
+    address.setPostalCode(String.format("%02d%03d", 1 + random.nextInt(PROVINCES), random.nextInt(1_000)));
+
+    return address;
+  }
+
+  /**
+   * Crea un número de teléfono asignado a un estudiante
+   * @param number Número
+   * @param owner  Estudiante
+   * @return PhoneNumber
+   */
+  private static PhoneNumber phoneNumber(long number, Student owner) {
+
+    Set<Student> owners = new HashSet<>();
+    owners.add(owner);
+
+    return new PhoneNumber(Long.toString(number), owners);
+  }
+
+  /**
+   * Extrae valores distintos de JavaFaker hasta completar el tamaño del vocabulario o agotar los intentos
+   * @param source Origen de los valores. Los vacíos se descartan
+   * @return List(String)
+   */
+  private static List<String> vocabulary(Supplier<String> source) {
+
+    Set<String> values = new LinkedHashSet<>();
+
+    for (int i = 0; i < VOCABULARY_ATTEMPTS && values.size() < VOCABULARY_SIZE; i++) {
+      String value = source.get();
+      if (!value.isBlank()) {
+        values.add(value);
+      }
+    }
+
+    return new ArrayList<>(values);
+  }
+
+  /**
+   * Elige un valor del vocabulario
+   * @param values Vocabulario
+   * @param random Generador de números aleatorios
+   * @return String
+   */
+  private static String pick(List<String> values, SplittableRandom random) {
+    return values.get(random.nextInt(values.size()));
+  }
+
+  /**
+   * Devuelve el valor si aún no se había usado o, sino, el valor con el primer sufijo numérico libre, y lo marca como usado
+   * @param used  Valores ya usados
+   * @param value Valor
+   * @return String
+   */
+  private static String unique(Set<String> used, String value) {
+
+    String candidate = value;
+    for (int i = 2; !used.add(candidate); i++) {
+      candidate = value + " " + i;
+    }
+
+    return candidate;
+  }
+
+  /**
+   * Adapta un nombre de JavaFaker a las letras que admite el nombre de un estudiante: se eliminan las tildes y diéresis
+   * (conservando la Ñ) y los caracteres que no son letras se sustituyen por espacios
+   * @param value Nombre
+   * @return String
+   */
+  private static String toName(String value) {
+
+    String decomposed = Normalizer.normalize(value.replace('ñ', '\u0001').replace('Ñ', '\u0002'), Normalizer.Form.NFD);
+    StringBuilder sb = new StringBuilder(value.length());
+
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+
+      if (c == '\u0001') {
+        sb.append('ñ');
+      } else if (c == '\u0002') {
+        sb.append('Ñ');
+      } else if (c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z') {
+        sb.append(c);
+      } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        sb.append(' ');
+      }
+    }
+
+    return sb.toString().trim().replaceAll(" +", " ");
+  }
+
+  /**
+   * Recorta un texto a una longitud máxima
+   * @param value     Texto
+   * @param maxLength Longitud máxima
+   * @return String
+   */
+  private static String truncate(String value, int maxLength) {
+    return value.length() <= maxLength ? value : value.substring(0, maxLength).trim();
+  }
+
+  /**
+   * Permutación de los enteros entre 0 y un módulo: i -> (multiplicador * i + desplazamiento) mod módulo. Es una biyección
+   * si el multiplicador y el módulo son primos entre sí
+   * @param modulus    Módulo
+   * @param multiplier Multiplicador
+   * @param offset     Desplazamiento
+   */
+  private record Permutation(long modulus, long multiplier, long offset) {
+
+    /**
+     * Genera una permutación aleatoria
+     * @param modulus Módulo
+     * @param random  Generador de números aleatorios
+     * @return Permutation
+     */
+    static Permutation random(long modulus, SplittableRandom random) {
+
+      long multiplier = random.nextLong(modulus / 2, modulus);
+      while (gcd(multiplier, modulus) != 1) {
+        multiplier++;
+      }
+
+      return new Permutation(modulus, multiplier, random.nextLong(modulus));
+    }
+
+    /**
+     * Aplica la permutación. Los módulos usados no superan 2 * 10^8, por lo que el producto no desborda
+     * @param index Entero entre 0 y el módulo
+     * @return long
+     */
+    long apply(long index) {
+      return (multiplier * index + offset) % modulus;
+    }
+
+    /**
+     * Calcula el máximo común divisor
+     * @param a Primer número
+     * @param b Segundo número
+     * @return long
+     */
+    private static long gcd(long a, long b) {
+      return b == 0 ? a : gcd(b, a % b);
+    }
+  }
+
+}
@@ -0,0 +1,174 @@
+
+package app.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import app.entity.Course;
+import app.entity.persistence.AddressPersistence;
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.service.CourseService;
+import app.service.StudentService;
+
+/**
+ * Carga en la DB configurada un conjunto de datos sintético generado por {@link DatasetGenerator}, para pruebas de
+ * capacidad del esquema. Los estudiantes se generan y se almacenan por bloques en paralelo, cada bloque mediante
+ * {@link StudentService#saveStudents(java.util.Collection)} (inserciones por lotes en una única transacción). Debe
+ * ejecutarse sobre un esquema vacío.<br>
+ * Argumentos: número de estudiantes, semilla (1 por defecto), proporción de estudiantes que comparten teléfono fijo con el
+ * anterior (0.2 por defecto) e hilos de carga (uno por procesador por defecto)
+ */
+public class DatasetLoader {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DatasetLoader.class);
+
+  /** Estudiantes de cada bloque. Es múltiplo del tamaño de los lotes JDBC configurado */
+  private static final int CHUNK_SIZE = 1_000;
+
+  /** Número de centros escolares */
+  private static final int SCHOOLS = 20;
+
+  /** Número de cursos de cada centro escolar */
+  private static final int COURSES_PER_SCHOOL = 8;
+
+  /** Año de comienzo de los cursos */
+  private static final int STARTING_YEAR = 2026;
+
+  /** Semilla por defecto */
+  private static final long DEFAULT_SEED = 1;
+
+  /** Proporción por defecto de estudiantes que comparten teléfono fijo con el anterior */
+  private static final double DEFAULT_PHONE_SHARE_RATIO = 0.2;
+
+  /** Porcentaje de la carga entre cada mensaje de progreso */
+  private static final int PROGRESS_STEP_PERCENT = 10;
+
+  /** Constructor privado para evitar instanciación de clase */
+  private DatasetLoader() {
+  }
+
+  /**
+   * Main
+   * @param args Número de estudiantes, semilla, proporción de teléfonos compartidos e hilos. Sólo el primero es obligatorio
+   */
+  public static void main(String[] args) {
+
+    if (args.length == 0) {
+      System.err.println("Uso: DatasetLoader <estudiantes> [semilla] [proporción de teléfonos compartidos] [hilos]");
+      System.exit(2);
+    }
+
+    long students = Long.parseLong(args[0]);
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+    double phoneShareRatio = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_PHONE_SHARE_RATIO;
+    int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+    if (students <= 0 || students > DatasetGenerator.MAX_STUDENTS || threads <= 0) {
+      System.err.println("El número de estudiantes debe estar entre 1 y " + DatasetGenerator.MAX_STUDENTS
+          + " y el de hilos ser mayor que 0");
+      System.exit(2);
+    }
+
+    int status = 0;
+
+    try {
+      load(new DatasetGenerator(seed, phoneShareRatio), students, threads);
+
+    } catch (PersistenceException | ExecutionException e) {
+      LOGGER.error("Error durante la carga del conjunto de datos", e);
+      status = 1;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = 1;
+
+    } finally {
+      SessionFactoryProvider.shutdown();
+    }
+
+    System.exit(status);
+  }
+
+  /**
+   * Almacena los cursos del conjunto de datos y después sus estudiantes, por bloques en paralelo
+   * @param generator Generador del conjunto de datos
+   * @param students  Número de estudiantes
+   * @param threads   Hilos de carga
+   * @throws PersistenceException En caso de que ocurra un error durante el almacenamiento de los cursos
+   * @throws ExecutionException   En caso de que falle el almacenamiento de algún bloque de estudiantes. Los bloques ya
+   *                              almacenados se conservan
+   * @throws InterruptedException En caso de que el hilo se interrumpa mientras espera a la carga
+   */
+  private static void load(DatasetGenerator generator, long students, int threads)
+      throws PersistenceException, ExecutionException, InterruptedException {
+
+    CoursePersistence cPersistence = new CoursePersistence();
+    CourseService courseService = new CourseService(cPersistence);
+    StudentService studentService = new StudentService(new StudentPersistence(), cPersistence,
+        new PhoneNumberPersistence(), new AddressPersistence());
+
+    // Los cursos se almacenan primero: los estudiantes sólo los referencian
+    List<Course> courses = new ArrayList<>();
+    for (Course course : generator.generateCourses(SCHOOLS, COURSES_PER_SCHOOL, STARTING_YEAR)) {
+      courseService.save(course.getName(), course.getSchool(), course.getStartingYear());
+      courses.add(courseService.findByNameSchoolAndStartingYear(course.getName(), course.getSchool(),
+          course.getStartingYear()));
+    }
+
+    LOGGER.info("Cargando {} estudiantes en {} cursos con {} hilos", students, courses.size(), threads);
+
+    long start = System.nanoTime();
+    long progressStep = Math.max(students * PROGRESS_STEP_PERCENT / 100, 1);
+    AtomicLong loaded = new AtomicLong();
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      List<Future<?>> chunks = new ArrayList<>();
+
+      for (long first = 0; first < students; first += CHUNK_SIZE) {
+
+        long firstIndex = first;
+        int count = (int) Math.min(CHUNK_SIZE, students - first);
+
+        // Cada bloque se genera en el hilo que lo almacena, por lo que sólo hay un bloque en memoria por hilo
+        chunks.add(executor.submit(() -> {
+
+          studentService.saveStudents(generator.generateStudents(firstIndex, count, courses));
+
+          long total = loaded.addAndGet(count);
+          if (total / progressStep != (total - count) / progressStep) {
+            LOGGER.info("{} de {} estudiantes cargados", total, students);
+          }
+
+          return null;
+        }));
+      }
+
+      for (Future<?> chunk : chunks) {
+        chunk.get();
+      }
+
+    } finally {
+      executor.shutdownNow();
+    }
+
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    LOGGER.info("{} estudiantes cargados en {} s ({} estudiantes/s)", students, String.format("%.1f", seconds),
+        String.format("%.0f", students / seconds));
+  }
+
+}
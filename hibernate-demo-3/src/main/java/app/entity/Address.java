@@ -1,6 +1,9 @@
 
 package app.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import app.entity.constants.DbConstants;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -8,11 +11,15 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 /** Dirección de las distintas personas implicadas en el sistema */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DbConstants.ADDRESS_CACHE_REGION)
 @Table(name = DbConstants.ADDRESS_TABLE)
 @Data
 @NoArgsConstructor
@@ -20,7 +27,8 @@ public class Address {
 
   /** ID */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = DbConstants.ADDRESS_ID_GENERATOR)
+  @TableGenerator(name = DbConstants.ADDRESS_ID_GENERATOR, table = DbConstants.ID_GENERATOR_TABLE, pkColumnName = DbConstants.ID_GENERATOR_NAME, valueColumnName = DbConstants.ID_GENERATOR_VALUE, pkColumnValue = DbConstants.ADDRESS_TABLE, allocationSize = DbConstants.ID_ALLOCATION_SIZE)
   @Column(name = DbConstants.ADDRESS_ID)
   private Integer id;
 
@@ -36,6 +44,12 @@ public class Address {
   @Column(name = DbConstants.ADDRESS_POSTAL_CODE, columnDefinition = "CHAR(5)", nullable = false)
   private String postalCode;
 
+  /** Versión para el bloqueo optimista */
+  @Version
+  @Column(name = DbConstants.ADDRESS_VERSION, nullable = false)
+  @EqualsAndHashCode.Exclude
+  private int version;
+
   @Override
   public String toString() {
     return String.format("ID: %d, Street Address: %s, City: %s, Postal Code: %s", id, streetAddress, city, postalCode);
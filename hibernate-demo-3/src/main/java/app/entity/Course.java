@@ -1,6 +1,11 @@
 
 package app.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import app.entity.constants.DbConstants;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -8,11 +13,16 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 /** Curso que puede cursar un alumno */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DbConstants.COURSE_CACHE_REGION)
+@NaturalIdCache(region = DbConstants.COURSE_NATURAL_ID_CACHE_REGION)
 @Table(name = DbConstants.COURSE_TABLE)
 @Data
 @NoArgsConstructor
@@ -20,22 +30,32 @@ public class Course {
 
   /** ID del curso */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = DbConstants.COURSE_ID_GENERATOR)
+  @TableGenerator(name = DbConstants.COURSE_ID_GENERATOR, table = DbConstants.ID_GENERATOR_TABLE, pkColumnName = DbConstants.ID_GENERATOR_NAME, valueColumnName = DbConstants.ID_GENERATOR_VALUE, pkColumnValue = DbConstants.COURSE_TABLE, allocationSize = DbConstants.ID_ALLOCATION_SIZE)
   @Column(name = DbConstants.COURSE_ID)
   private Integer id;
 
-  /** Nombre del curso */
+  /** Nombre del curso. Forma parte del identificador natural junto con el centro escolar y el año de comienzo */
+  @NaturalId
   @Column(name = DbConstants.COURSE_NAME, columnDefinition = "VARCHAR(80)", nullable = false)
   private String name;
 
   /** Centro escolar que imparte el curso */
+  @NaturalId
   @Column(name = DbConstants.COURSE_SCHOOL, columnDefinition = "VARCHAR(100)", nullable = false)
   private String school;
 
   /** Año de comienzo del curso */
+  @NaturalId
   @Column(name = DbConstants.COURSE_STARTING_YEAR, nullable = false)
   private int startingYear;
 
+  /** Versión para el bloqueo optimista */
+  @Version
+  @Column(name = DbConstants.COURSE_VERSION, nullable = false)
+  @EqualsAndHashCode.Exclude
+  private int version;
+
   /**
    * Constructor con parámetros
    * @param name         Nombre
@@ -1,8 +1,14 @@
 
 package app.entity;
 
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.OptimisticLock;
 
 import app.entity.constants.DbConstants;
 import jakarta.persistence.Column;
@@ -13,11 +19,15 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /** Número de teléfono asociado a un estudiante */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DbConstants.PHONE_NUMBER_CACHE_REGION)
+@NaturalIdCache(region = DbConstants.PHONE_NUMBER_NATURAL_ID_CACHE_REGION)
 @Table(name = DbConstants.PHONE_NUMBER_TABLE)
 @Data
 @NoArgsConstructor
@@ -25,24 +35,36 @@ public class PhoneNumber {
 
   /** ID */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = DbConstants.PHONE_NUMBER_ID_GENERATOR)
+  @TableGenerator(name = DbConstants.PHONE_NUMBER_ID_GENERATOR, table = DbConstants.ID_GENERATOR_TABLE, pkColumnName = DbConstants.ID_GENERATOR_NAME, valueColumnName = DbConstants.ID_GENERATOR_VALUE, pkColumnValue = DbConstants.PHONE_NUMBER_TABLE, allocationSize = DbConstants.ID_ALLOCATION_SIZE)
   @Column(name = DbConstants.PHONE_NUMBER_ID)
   private Integer id;
 
-  /** Número de teléfono asociado */
+  /** Número de teléfono asociado. Identificador natural del número de teléfono */
+  @NaturalId
   @Column(name = DbConstants.PHONE_NUMBER_NUM, columnDefinition = "CHAR(9)", unique = true, nullable = false)
   private String number;
 
-  /** Estudiantes que tienen relacionado este número de teléfono */
-  @ManyToMany(mappedBy = "phoneNumbers", fetch = FetchType.EAGER)
-  private List<Student> students;
+  /**
+   * Estudiantes que tienen relacionado este número de teléfono. La relación se persiste desde el estudiante, por lo que sus
+   * cambios no incrementan la versión del número
+   */
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DbConstants.PHONE_NUMBER_STUDENTS_CACHE_REGION)
+  @ManyToMany(mappedBy = "phoneNumbers", fetch = FetchType.LAZY)
+  @OptimisticLock(excluded = true)
+  private Set<Student> students;
+
+  /** Versión para el bloqueo optimista */
+  @Version
+  @Column(name = DbConstants.PHONE_NUMBER_VERSION, nullable = false)
+  private int version;
 
   /**
    * Constructor con parámetros
    * @param number   Número de teléfono
    * @param students Estudiantes al que está asignado
    */
-  public PhoneNumber(String number, List<Student> students) {
+  public PhoneNumber(String number, Set<Student> students) {
     this.number = number;
     this.students = students;
   }
@@ -52,16 +74,19 @@ public class PhoneNumber {
     return String.format("ID: %d, Phone Number: %s", id, number);
   }
 
+  /**
+   * Dos números son iguales si tienen el mismo número, su identificador natural. El número del otro se lee con su getter
+   * porque puede ser un proxy sin inicializar, como las referencias que devuelve
+   * {@link app.entity.persistence.PhoneNumberPersistence#getReferenceByNumber(String)}
+   */
   @Override
   public boolean equals(Object obj) {
     if (this == obj)
       return true;
-    if (obj == null)
+    if (!(obj instanceof PhoneNumber other))
       return false;
-    if (getClass() != obj.getClass())
-      return false;
-    PhoneNumber other = (PhoneNumber) obj;
-    return Objects.equals(number, other.number);
+
+    return number != null && number.equals(other.getNumber());
   }
 
   @Override
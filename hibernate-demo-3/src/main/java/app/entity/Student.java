@@ -2,8 +2,14 @@
 package app.entity;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import app.entity.constants.DbConstants;
 import jakarta.persistence.CascadeType;
@@ -17,13 +23,24 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /** Estudiante de un centro educativo */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DbConstants.STUDENT_CACHE_REGION)
+@NaturalIdCache(region = DbConstants.STUDENT_NATURAL_ID_CACHE_REGION)
+@NamedEntityGraph(name = DbConstants.STUDENT_IDENTITY_GRAPH)
+@NamedEntityGraph(name = DbConstants.STUDENT_LIST_GRAPH, attributeNodes = { @NamedAttributeNode("address"),
+    @NamedAttributeNode("course") })
+@NamedEntityGraph(name = DbConstants.STUDENT_DETAIL_GRAPH, attributeNodes = { @NamedAttributeNode("address"),
+    @NamedAttributeNode("course"), @NamedAttributeNode("phoneNumbers") })
 @Table(name = DbConstants.STUDENT_TABLE)
 @Data
 @NoArgsConstructor
@@ -31,11 +48,13 @@ public class Student {
 
   /** ID */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = DbConstants.STUDENT_ID_GENERATOR)
+  @TableGenerator(name = DbConstants.STUDENT_ID_GENERATOR, table = DbConstants.ID_GENERATOR_TABLE, pkColumnName = DbConstants.ID_GENERATOR_NAME, valueColumnName = DbConstants.ID_GENERATOR_VALUE, pkColumnValue = DbConstants.STUDENT_TABLE, allocationSize = DbConstants.ID_ALLOCATION_SIZE)
   @Column(name = DbConstants.STUDENT_ID, columnDefinition = "INT")
   private Integer id;
 
-  /** DNI */
+  /** DNI. Identificador natural del estudiante */
+  @NaturalId
   @Column(name = DbConstants.STUDENT_DNI, unique = true, columnDefinition = "CHAR(9)", nullable = false)
   private String dni;
 
@@ -48,38 +67,48 @@ public class Student {
   private LocalDate birthdate;
 
   /** Dirección completa del estudiante */
-  @OneToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+  @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
 
   @JoinColumn(name = DbConstants.STUDENT_ADDRESS_ID, referencedColumnName = DbConstants.ADDRESS_ID, columnDefinition = "INT")
   private Address address;
 
-  /** Números de teléfono */
-  @ManyToMany(fetch = FetchType.EAGER, cascade = { CascadeType.MERGE, CascadeType.PERSIST })
+  /**
+   * Números de teléfono. Es un conjunto para que Hibernate añada o elimine únicamente la fila de la tabla de unión que
+   * cambia, en lugar de borrar y volver a insertar todas las del estudiante como haría con una bolsa (lista sin orden)
+   */
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DbConstants.STUDENT_PHONE_NUMBERS_CACHE_REGION)
+  @ManyToMany(fetch = FetchType.LAZY, cascade = { CascadeType.MERGE, CascadeType.PERSIST })
   @JoinTable(name = DbConstants.STUDENT_PHONE_NUMBER_TABLE, joinColumns = @JoinColumn(name = DbConstants.STUDENT_PHONE_NUMBER_STUDENT_ID), inverseJoinColumns = @JoinColumn(name = DbConstants.STUDENT_PHONE_NUMBER_PHONE_ID))
-  private List<PhoneNumber> phoneNumbers;
+  private Set<PhoneNumber> phoneNumbers;
 
   /** Curso que realiza el estudiante */
-  @ManyToOne(fetch = FetchType.EAGER)
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = DbConstants.STUDENT_COURSE_ID, referencedColumnName = DbConstants.COURSE_ID)
   private Course course;
 
+  /** Versión para el bloqueo optimista. Se incrementa al modificar sus atributos, dirección, curso o teléfonos */
+  @Version
+  @Column(name = DbConstants.STUDENT_VERSION, nullable = false)
+  private int version;
+
+  /**
+   * Dos estudiantes son iguales si tienen el mismo DNI, su identificador natural. No se usa el ID, que se asigna al
+   * persistir, para que el hash no cambie mientras el estudiante está en un conjunto. El DNI se lee con su getter porque el
+   * otro estudiante puede ser un proxy sin inicializar
+   */
   @Override
   public boolean equals(Object obj) {
     if (this == obj)
       return true;
-    if (obj == null)
-      return false;
-    if (getClass() != obj.getClass())
+    if (!(obj instanceof Student other))
       return false;
 
-    Student other = (Student) obj;
-    return Objects.equals(birthdate, other.birthdate) && Objects.equals(dni, other.dni) && Objects.equals(id, other.id)
-        && Objects.equals(name, other.name);
+    return dni != null && dni.equals(other.getDni());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(birthdate, dni, id, name);
+    return Objects.hashCode(dni);
   }
 
   @Override
@@ -87,7 +116,16 @@ public class Student {
     String birthdateStr = birthdate.toString();
 
     return String.format("ID: %d, DNI: %s, Name: %s. Birthdate: %s, Address: %s, Phone Numbers: %s, Course: %s", id, dni,
-        name, birthdateStr, address, phoneNumbers, course);
+        name, birthdateStr, describe(address), describe(phoneNumbers), describe(course));
+  }
+
+  /**
+   * Obtiene la descripción de una relación, sin forzar su carga si es perezosa y no se ha inicializado
+   * @param association Relación del estudiante
+   * @return String
+   */
+  private static String describe(Object association) {
+    return Hibernate.isInitialized(association) ? String.valueOf(association) : "<not loaded>";
   }
 
 }
@@ -8,6 +8,35 @@ public class DbConstants {
   private DbConstants() {
   }
 
+  // ------------------ Tabla T_Id_Generator ------------------
+
+  /** Nombre de la tabla de generación de IDs, con una fila por cada tabla de entidades */
+  public static final String ID_GENERATOR_TABLE = "T_Id_Generator";
+
+  /** Campo con el nombre de la secuencia de la tabla T_Id_Generator */
+  public static final String ID_GENERATOR_NAME = "sequence_name";
+
+  /** Campo con el siguiente valor de la secuencia de la tabla T_Id_Generator */
+  public static final String ID_GENERATOR_VALUE = "next_val";
+
+  /**
+   * Número de IDs que se reservan en cada acceso a T_Id_Generator. Debe coincidir con hibernate.jdbc.batch_size para que cada
+   * lote de inserciones necesite una única reserva
+   */
+  public static final int ID_ALLOCATION_SIZE = 50;
+
+  /** Nombre del generador de IDs de direcciones */
+  public static final String ADDRESS_ID_GENERATOR = "address_id_generator";
+
+  /** Nombre del generador de IDs de números de teléfono */
+  public static final String PHONE_NUMBER_ID_GENERATOR = "phone_number_id_generator";
+
+  /** Nombre del generador de IDs de estudiantes */
+  public static final String STUDENT_ID_GENERATOR = "student_id_generator";
+
+  /** Nombre del generador de IDs de cursos */
+  public static final String COURSE_ID_GENERATOR = "course_id_generator";
+
   // ------------------ Tabla T_ Address ------------------
 
   /** Nombre de la tabla de direcciones */
@@ -25,6 +54,12 @@ public class DbConstants {
   /** Campo código postal de la tabla T_Address */
   public static final String ADDRESS_POSTAL_CODE = "postal_code";
 
+  /** Campo versión de la tabla T_Address, para el bloqueo optimista */
+  public static final String ADDRESS_VERSION = "version";
+
+  /** Índice único de la descripción y la ciudad de la tabla T_Address */
+  public static final String ADDRESS_STREET_CITY_UNIQUE = "uk_address_street_city";
+
   // ------------------ Tabla T_Phone_Number ------------------
 
   /** Nombre de la tabla de números de teléfono */
@@ -39,6 +74,12 @@ public class DbConstants {
   /** Campo nombre de ciudad de la tabla T_Address */
   public static final String PHONE_NUMBER_STUDENT_ID = "student_id";
 
+  /** Campo versión de la tabla T_Phone_Number, para el bloqueo optimista */
+  public static final String PHONE_NUMBER_VERSION = "version";
+
+  /** Índice único del número de la tabla T_Phone_Number */
+  public static final String PHONE_NUMBER_NUM_UNIQUE = "uk_phone_number_number";
+
   // ------------------ Tabla T_Student ------------------
 
   /** Nombre de la tabla de estudiantes */
@@ -65,6 +106,12 @@ public class DbConstants {
   /** Campo ID del curso en el que se encuentra el estudiante */
   public static final String STUDENT_COURSE_ID = "course_id";
 
+  /** Campo versión de la tabla T_Student, para el bloqueo optimista */
+  public static final String STUDENT_VERSION = "version";
+
+  /** Índice único del DNI de la tabla T_Student */
+  public static final String STUDENT_DNI_UNIQUE = "uk_student_dni";
+
   // ------------------ Tabla T_Student_PhoneNumber ------------------
 
   /** Nombre de la tabla de intermedia entre estudiantes y números de teléfono */
@@ -93,4 +140,47 @@ public class DbConstants {
   /** Campo starting_year de la tabla T_Course */
   public static final String COURSE_STARTING_YEAR = "starting_year";
 
+  /** Campo versión de la tabla T_Course, para el bloqueo optimista */
+  public static final String COURSE_VERSION = "version";
+
+  // ------------------ Grafos de carga ------------------
+
+  /** Grafo de carga de estudiantes con sólo sus atributos propios */
+  public static final String STUDENT_IDENTITY_GRAPH = "Student.identityOnly";
+
+  /** Grafo de carga de estudiantes para listados: atributos propios, dirección y curso */
+  public static final String STUDENT_LIST_GRAPH = "Student.listView";
+
+  /** Grafo de carga de estudiantes con todas sus relaciones: dirección, curso y números de teléfono */
+  public static final String STUDENT_DETAIL_GRAPH = "Student.fullDetail";
+
+  // ------------------ Regiones de la caché de segundo nivel ------------------
+
+  /** Región de caché de estudiantes */
+  public static final String STUDENT_CACHE_REGION = "student";
+
+  /** Región de caché de direcciones */
+  public static final String ADDRESS_CACHE_REGION = "address";
+
+  /** Región de caché de números de teléfono */
+  public static final String PHONE_NUMBER_CACHE_REGION = "phoneNumber";
+
+  /** Región de caché de la colección de números de teléfono de cada estudiante */
+  public static final String STUDENT_PHONE_NUMBERS_CACHE_REGION = "student.phoneNumbers";
+
+  /** Región de caché de la colección de estudiantes de cada número de teléfono */
+  public static final String PHONE_NUMBER_STUDENTS_CACHE_REGION = "phoneNumber.students";
+
+  /** Región de caché de cursos */
+  public static final String COURSE_CACHE_REGION = "course";
+
+  /** Región de caché de la resolución DNI -> ID de estudiante */
+  public static final String STUDENT_NATURAL_ID_CACHE_REGION = "student.naturalId";
+
+  /** Región de caché de la resolución número -> ID de número de teléfono */
+  public static final String PHONE_NUMBER_NATURAL_ID_CACHE_REGION = "phoneNumber.naturalId";
+
+  /** Región de caché de la resolución (nombre, centro escolar, año de comienzo) -> ID de curso */
+  public static final String COURSE_NATURAL_ID_CACHE_REGION = "course.naturalId";
+
 }
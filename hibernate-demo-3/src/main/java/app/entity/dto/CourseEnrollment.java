@@ -0,0 +1,19 @@
+
+package app.entity.dto;
+
+/**
+ * Número de estudiantes matriculados en un curso. Se obtiene directamente de la DB mediante una proyección agregada
+ * @param courseName   Nombre del curso
+ * @param school       Centro escolar
+ * @param startingYear Año de comienzo del curso
+ * @param students     Número de estudiantes matriculados
+ */
+public record CourseEnrollment(String courseName, String school, int startingYear, long students) {
+
+  @Override
+  public String toString() {
+    return String.format("Course: %s, School: %s, Starting Year: %d, Students: %d", courseName, school, startingYear,
+        students);
+  }
+
+}
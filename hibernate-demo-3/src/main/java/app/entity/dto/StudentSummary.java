@@ -0,0 +1,22 @@
+
+package app.entity.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Resumen de un estudiante para listados. Se obtiene directamente de la DB mediante una proyección, sin cargar la entidad
+ * Student ni sus relaciones
+ * @param dni        DNI
+ * @param name       Nombre completo
+ * @param birthdate  Fecha de nacimiento
+ * @param city       Ciudad de la dirección. Será null si el estudiante no tiene dirección
+ * @param courseName Nombre del curso. Será null si el estudiante no tiene curso asignado
+ */
+public record StudentSummary(String dni, String name, LocalDate birthdate, String city, String courseName) {
+
+  @Override
+  public String toString() {
+    return String.format("DNI: %s, Name: %s, Birthdate: %s, City: %s, Course: %s", dni, name, birthdate, city, courseName);
+  }
+
+}
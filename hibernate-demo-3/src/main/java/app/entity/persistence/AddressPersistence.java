@@ -3,39 +3,34 @@ package app.entity.persistence;
 
 import java.util.List;
 
-import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.hibernate.cfg.Configuration;
 import org.hibernate.query.Query;
 
 import app.entity.Address;
 import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import app.metrics.MetricsRegistry;
 
 /** Sistema de persistencia de direcciones */
 public class AddressPersistence {
 
+  /** Métricas de las operaciones */
+  private static final ComponentMetrics METRICS = MetricsRegistry.forComponent(AddressPersistence.class);
+
   /** Factoría de sesiones */
   private SessionFactory factory;
 
   /**
-   * Constructor de la clase. Inicializa la factoría de sesiones
+   * Constructor de la clase. Obtiene la factoría de sesiones compartida
    * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
    */
   public AddressPersistence() {
-
-    // Se intenta crear la factoría de sesiones añadiendo las clases con anotaciones
-    try {
-      factory = new Configuration().configure().addAnnotatedClass(app.entity.Address.class).buildSessionFactory();
-
-    } catch (Exception ex) {
-
-      throw new ExceptionInInitializerError("Error al crear un objeto de la clase SessionFactory");
-    }
+    factory = SessionFactoryProvider.getSessionFactory();
   }
 
   /**
-   * Almacena o actualiza una dirección en la DB en función de si existe o no previamente
+   * Almacena o actualiza una dirección en la DB en función de si existe o no previamente. Dentro de una unidad de trabajo, se
+   * usa su sesión y transacción
    * @param address Dirección a almacenar/actualizar. Almacena la dirección si no dispone de un ID asignado, o la actualiza
    *                en caso contrario
    * @return Integer - El ID de la dirección
@@ -44,33 +39,18 @@ public class AddressPersistence {
    */
   public Integer saveOrUpdateAddress(Address address) throws PersistenceException {
 
-    Session session = factory.openSession();
-    Transaction transaction = null;
-
-    // Se persiste la información y se obtiene el ID de la dirección
-    try {
-
-      transaction = session.beginTransaction();
+    return METRICS.time("saveOrUpdateAddress", () -> UnitOfWork.inTransaction(factory, session -> {
 
-      Address mergedAddress = session.merge(address);
-      Integer id = mergedAddress.getId();
-
-      transaction.commit();
-
-      return id;
-
-    } catch (Exception e) {
-
-      if (transaction != null) {
-        transaction.rollback();
+      // Si la dirección ya pertenece a la sesión de la unidad de trabajo, sus cambios se envían al confirmarla
+      // Se persiste igualmente para propagar la operación a las entidades nuevas que referencie
+      if (session.contains(address)) {
+        session.persist(address);
+        return address.getId();
       }
 
-      // Se lanza otra excepción personalizada
-      throw new PersistenceException(e.getMessage());
-
-    } finally {
-      session.close();
-    }
+      // Se persiste la información y se obtiene el ID de la dirección
+      return session.merge(address).getId();
+    }));
   }
 
   /**
@@ -80,14 +60,9 @@ public class AddressPersistence {
    */
   public List<Address> getAllAddress() throws PersistenceException {
 
-    // Se crea la sesión y lanza la consulta
-    try (Session session = factory.openSession()) {
-      return session.createQuery("FROM Address", app.entity.Address.class).list();
-
-    } catch (Exception e) {
-
-      throw new PersistenceException(e.getMessage());
-    }
+    // Se lanza la consulta
+    return METRICS.time("getAllAddress", () -> UnitOfWork.inReadSession(factory,
+        session -> session.createQuery("FROM Address", app.entity.Address.class).list()));
   }
 
   /**
@@ -97,29 +72,14 @@ public class AddressPersistence {
    */
   public void deleteAddress(Integer addressId) throws PersistenceException {
 
-    Session session = factory.openSession();
-    Transaction transaction = null;
-
-    try {
-      transaction = session.beginTransaction();
+    METRICS.run("deleteAddress", () -> UnitOfWork.inTransaction(factory, session -> {
 
       // Se obtiene la dirección dado el ID por parámetro y se elimina
       Address address = session.get(Address.class, addressId);
       session.remove(address);
 
-      transaction.commit();
-
-    } catch (Exception e) {
-
-      if (transaction != null) {
-        transaction.rollback();
-      }
-
-      throw new PersistenceException(e.getMessage());
-
-    } finally {
-      session.close();
-    }
+      return null;
+    }));
   }
 
   /**
@@ -132,7 +92,7 @@ public class AddressPersistence {
    */
   public Address findByStreetAndCity(String streetAddress, String city) throws PersistenceException {
 
-    try (Session session = factory.openSession()) {
+    return METRICS.time("findByStreetAndCity", () -> UnitOfWork.inReadSession(factory, session -> {
 
       // Se crea la consulta y se pasan los parámetros
       Query<Address> query = session.createQuery("FROM Address WHERE streetAddress = :staddress AND city = :cit",
@@ -156,11 +116,7 @@ public class AddressPersistence {
       }
 
       return resultAddress;
-
-    } catch (Exception e) {
-
-      throw new PersistenceException(e.getMessage());
-    }
+    }));
   }
 
 }
@@ -3,39 +3,33 @@ package app.entity.persistence;
 
 import java.util.List;
 
-import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.hibernate.cfg.Configuration;
-import org.hibernate.query.Query;
 
 import app.entity.Course;
+import app.entity.dto.CourseEnrollment;
 import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import app.metrics.MetricsRegistry;
 
 /** Sistema de persistencia de Cursos */
 public class CoursePersistence {
 
+  /** Métricas de las operaciones */
+  private static final ComponentMetrics METRICS = MetricsRegistry.forComponent(CoursePersistence.class);
+
   /** Factoría de sesiones */
   private SessionFactory factory;
 
   /**
-   * Constructor de la clase. Inicializa la factoría de sesiones
+   * Constructor de la clase. Obtiene la factoría de sesiones compartida
    * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
    */
   public CoursePersistence() {
-
-    // Se intenta crear la factoría de sesiones añadiendo las clases con anotaciones
-    try {
-      factory = new Configuration().configure().addAnnotatedClass(app.entity.Course.class).buildSessionFactory();
-
-    } catch (Exception ex) {
-
-      throw new ExceptionInInitializerError("Error al crear un objeto de la clase SessionFactory");
-    }
+    factory = SessionFactoryProvider.getSessionFactory();
   }
 
   /**
-   * Almacena/Modifica un curso en la DB
+   * Almacena/Modifica un curso en la DB. Dentro de una unidad de trabajo, se usa su sesión y transacción
    * @param course Curso a almacenar o modificar. Se almacenará si no dispone de un ID previo, o se actualizará en caso
    *               contrario
    * @return Integer - El ID del curso
@@ -43,33 +37,18 @@ public class CoursePersistence {
    */
   public Integer saveOrUpdateCourse(Course course) throws PersistenceException {
 
-    // Se abre la sesión y la transacción
-    Session session = factory.openSession();
-    Transaction transaction = null;
-
-    try {
-      transaction = session.beginTransaction();
-
-      // Se persiste la información y se obtiene el ID del curso
-      Course mergedCourse = session.merge(course);
-      Integer id = mergedCourse.getId();
-
-      transaction.commit();
-
-      return id;
-
-    } catch (Exception e) {
+    return METRICS.time("saveOrUpdateCourse", () -> UnitOfWork.inTransaction(factory, session -> {
 
-      if (transaction != null) {
-        transaction.rollback();
+      // Si el curso ya pertenece a la sesión de la unidad de trabajo, sus cambios se envían al confirmarla
+      // Se persiste igualmente para propagar la operación a las entidades nuevas que referencie
+      if (session.contains(course)) {
+        session.persist(course);
+        return course.getId();
       }
 
-      // Se lanza otra excepción personalizada
-      throw new PersistenceException(e.getMessage());
-
-    } finally {
-      session.close();
-    }
+      // Se persiste la información y se obtiene el ID del curso
+      return session.merge(course).getId();
+    }));
   }
 
   /**
@@ -79,14 +58,23 @@ public class CoursePersistence {
    */
   public List<Course> getAllCourse() throws PersistenceException {
 
-    // Se crea la sesión y lanza la consulta
-    try (Session session = factory.openSession()) {
-      return session.createQuery("FROM Course", app.entity.Course.class).list();
+    // Se lanza la consulta
+    return METRICS.time("getAllCourse", () -> UnitOfWork.inReadSession(factory,
+        session -> session.createQuery("FROM Course", app.entity.Course.class).list()));
+  }
 
-    } catch (Exception e) {
+  /**
+   * Obtiene el número de estudiantes matriculados en cada curso mediante una única consulta de proyección agregada
+   * @return List(CourseEnrollment) - Incluye los cursos sin estudiantes. Ordenada por año de comienzo, centro y nombre
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de cursos
+   */
+  public List<CourseEnrollment> getEnrollmentReport() throws PersistenceException {
 
-      throw new PersistenceException(e.getMessage());
-    }
+    return METRICS.time("getEnrollmentReport", () -> UnitOfWork.inReadSession(factory, session -> session.createQuery(
+        "SELECT new app.entity.dto.CourseEnrollment(c.name, c.school, c.startingYear, COUNT(s)) "
+            + "FROM Course c LEFT JOIN Student s ON s.course = c "
+            + "GROUP BY c.id, c.name, c.school, c.startingYear ORDER BY c.startingYear, c.school, c.name",
+        CourseEnrollment.class).list()));
   }
 
   /**
@@ -96,29 +84,14 @@ public class CoursePersistence {
    */
   public void deleteCourse(Integer courseId) throws PersistenceException {
 
-    Session session = factory.openSession();
-    Transaction transaction = null;
-
-    try {
-      transaction = session.beginTransaction();
+    METRICS.run("deleteCourse", () -> UnitOfWork.inTransaction(factory, session -> {
 
-      // Se obtiene la dirección dado el ID por parámetro y se elimina
+      // Se obtiene el curso dado el ID por parámetro y se elimina
       Course course = session.get(Course.class, courseId);
       session.remove(course);
 
-      transaction.commit();
-
-    } catch (Exception e) {
-
-      if (transaction != null) {
-        transaction.rollback();
-      }
-
-      throw new PersistenceException(e.getMessage());
-
-    } finally {
-      session.close();
-    }
+      return null;
+    }));
   }
 
   /**
@@ -132,35 +105,28 @@ public class CoursePersistence {
   public Course findByNameSchoolAndStartingYear(String courseName, String courseSchool, int courseStartingYear)
       throws PersistenceException {
 
-    try (Session session = factory.openSession()) {
-
-      // Se crea la consulta y se pasan los parámetros
-      Query<Course> query = session.createQuery(
-          "FROM Course WHERE name = :nm AND school = :schl AND startingYear = :strtngyr", app.entity.Course.class);
-
-      query.setParameter("nm", courseName);
-      query.setParameter("schl", courseSchool);
-      query.setParameter("strtngyr", courseStartingYear);
-
-      // Se obtiene la lista de cursos con los parámetros dados
-      List<Course> courseList = query.list();
-
-      // Debería existir sólo un resultado como mucho. Si hay más, hay un fallo en el sistema de guardado
-      Course resultCourse = null;
-
-      if (courseList.size() == 1) {
-        resultCourse = courseList.get(0);
-
-      } else if (!courseList.isEmpty()) {
-        throw new PersistenceException(
-            "Se ha obtenido más de un curso con el mismo nombre, instituto y año de comienzo. Es necesario revisar el proceso de guardado");
-      }
+    // Se resuelve el curso por su identificador natural compuesto. Si está en caché, no se lanza ninguna consulta
+    return METRICS.time("findByNameSchoolAndStartingYear", () -> UnitOfWork.inReadSession(factory,
+        session -> session.byNaturalId(Course.class).using("name", courseName).using("school", courseSchool)
+            .using("startingYear", courseStartingYear).load()));
+  }
 
-      return resultCourse;
+  /**
+   * Obtiene una referencia a un curso dado el nombre, instituto y año de inicio, sin cargar su estado. Sólo se resuelve su ID
+   * (desde la caché de identificadores naturales si es posible), por lo que es suficiente para asignarlo a un estudiante.
+   * Debe usarse dentro de una unidad de trabajo
+   * @param courseName         Nombre del curso
+   * @param courseSchool       Centro escolar que imparte el curso
+   * @param courseStartingYear Año de comienzo del curso
+   * @return Course - Será null si no se encuentra
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención del curso
+   */
+  public Course getReferenceByNameSchoolAndStartingYear(String courseName, String courseSchool, int courseStartingYear)
+      throws PersistenceException {
 
-    } catch (Exception e) {
-      throw new PersistenceException(e.getMessage());
-    }
+    return METRICS.time("getReferenceByNameSchoolAndStartingYear", () -> UnitOfWork.inSession(factory,
+        session -> session.byNaturalId(Course.class).using("name", courseName).using("school", courseSchool)
+            .using("startingYear", courseStartingYear).getReference()));
   }
 
 }
@@ -3,39 +3,32 @@ package app.entity.persistence;
 
 import java.util.List;
 
-import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.hibernate.cfg.Configuration;
-import org.hibernate.query.Query;
 
 import app.entity.PhoneNumber;
 import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import app.metrics.MetricsRegistry;
 
 /** Sistema de persistencia de números de teléfono */
 public class PhoneNumberPersistence {
 
+  /** Métricas de las operaciones */
+  private static final ComponentMetrics METRICS = MetricsRegistry.forComponent(PhoneNumberPersistence.class);
+
   /** Factoría de sesiones */
   private SessionFactory factory;
 
   /**
-   * Constructor de la clase. Inicializa la factoría de sesiones
+   * Constructor de la clase. Obtiene la factoría de sesiones compartida
    * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
    */
   public PhoneNumberPersistence() {
-
-    try {
-      factory = new Configuration().configure().addAnnotatedClass(app.entity.PhoneNumber.class)
-          .addAnnotatedClass(app.entity.Student.class).addAnnotatedClass(app.entity.Address.class)
-          .addAnnotatedClass(app.entity.Course.class).buildSessionFactory();
-
-    } catch (Exception ex) {
-      throw new ExceptionInInitializerError("Error al crear un objeto de la clase SessionFactory");
-    }
+    factory = SessionFactoryProvider.getSessionFactory();
   }
 
   /**
-   * Almacena / Modifica número de teléfono en la DB
+   * Almacena / Modifica número de teléfono en la DB. Dentro de una unidad de trabajo, se usa su sesión y transacción
    * @param phoneNumber Número de teléfono. Será almacenado si no dispone de id, o actualizado en caso contrario
    * @return Integer - ID generado del nuevo número de teléfono
    * @throws PersistenceException En caso de que exista un error durante el proceso de almacenamiento/modificación del número
@@ -43,30 +36,18 @@ public class PhoneNumberPersistence {
    */
   public Integer saveOrUpdatePhoneNumber(PhoneNumber phoneNumber) throws PersistenceException {
 
-    // Se abre sesión y la transacción
-    Session session = factory.openSession();
-    Transaction transaction = null;
-
-    try {
-      transaction = session.beginTransaction();
-
-      // Se almacena el número y se obtiene su ID generado
-      PhoneNumber mergedPhoneNumber = session.merge(phoneNumber);
-      Integer phoneNumberId = mergedPhoneNumber.getId();
-
-      transaction.commit();
-      return phoneNumberId;
-
-    } catch (Exception e) {
+    return METRICS.time("saveOrUpdatePhoneNumber", () -> UnitOfWork.inTransaction(factory, session -> {
 
-      if (transaction != null) {
-        transaction.rollback();
+      // Si el número ya pertenece a la sesión de la unidad de trabajo, sus cambios se envían al confirmarla
+      // Se persiste igualmente para propagar la operación a las entidades nuevas que referencie
+      if (session.contains(phoneNumber)) {
+        session.persist(phoneNumber);
+        return phoneNumber.getId();
       }
-      throw new PersistenceException(e.getMessage());
 
-    } finally {
-      session.close();
-    }
+      // Se almacena el número y se obtiene su ID generado
+      return session.merge(phoneNumber).getId();
+    }));
   }
 
   /**
@@ -76,14 +57,9 @@ public class PhoneNumberPersistence {
    */
   public List<PhoneNumber> getAllPhoneNumber() throws PersistenceException {
 
-    // Se abre la sesión y se lanza la consulta
-    try (Session session = factory.openSession()) {
-
-      return session.createQuery("FROM PhoneNumber", app.entity.PhoneNumber.class).list();
-
-    } catch (Exception e) {
-      throw new PersistenceException(e.getMessage());
-    }
+    // Se lanza la consulta
+    return METRICS.time("getAllPhoneNumber", () -> UnitOfWork.inReadSession(factory,
+        session -> session.createQuery("FROM PhoneNumber", app.entity.PhoneNumber.class).list()));
   }
 
   /**
@@ -93,29 +69,14 @@ public class PhoneNumberPersistence {
    */
   public void deletePhoneNumber(Integer phoneNumberId) throws PersistenceException {
 
-    // Se abre sesión y transacción
-    Session session = factory.openSession();
-    Transaction transaction = null;
-
-    try {
-      transaction = session.beginTransaction();
+    METRICS.run("deletePhoneNumber", () -> UnitOfWork.inTransaction(factory, session -> {
 
       // Se obtiene el número de teléfono dado el ID por parámetro y se elimina
       PhoneNumber phoneNumber = session.get(PhoneNumber.class, phoneNumberId);
       session.remove(phoneNumber);
 
-      transaction.commit();
-
-    } catch (Exception e) {
-
-      if (transaction != null) {
-        transaction.rollback();
-      }
-      throw new PersistenceException(e.getMessage());
-
-    } finally {
-      session.close();
-    }
+      return null;
+    }));
   }
 
   /**
@@ -127,33 +88,22 @@ public class PhoneNumberPersistence {
    */
   public PhoneNumber findByNumber(String number) throws PersistenceException {
 
-    try (Session session = factory.openSession()) {
-
-      // Se crea la consulta y se pasan los parámetros
-      Query<PhoneNumber> query = session.createQuery("FROM PhoneNumber WHERE number = :num", app.entity.PhoneNumber.class);
-
-      query.setParameter("num", number);
-
-      // Se obtiene la lista de ciudades con la descripción y ciudad dados
-      List<PhoneNumber> phoneNumberList = query.list();
-
-      // Debería existir sólo un resultado como mucho. Si hay más, hay un fallo en el sistema de guardado
-      PhoneNumber phoneNumber = null;
-
-      if (phoneNumberList.size() == 1) {
-        phoneNumber = phoneNumberList.get(0);
-
-      } else if (!phoneNumberList.isEmpty()) {
-
-        throw new PersistenceException(
-            "Se ha obtenido más de un dato con el mismo número de teléfono. Es necesario revisar el proceso de guardado");
-      }
-      return phoneNumber;
-
-    } catch (Exception e) {
+    // Se resuelve el número como identificador natural. Si está en caché, no se lanza ninguna consulta
+    return METRICS.time("findByNumber", () -> UnitOfWork.inReadSession(factory,
+        session -> session.bySimpleNaturalId(PhoneNumber.class).load(number)));
+  }
 
-      throw new PersistenceException(e.getMessage());
-    }
+  /**
+   * Obtiene una referencia a un PhoneNumber dado su número, sin cargar su estado. Sólo se resuelve su ID (desde la caché de
+   * identificadores naturales si es posible), por lo que es suficiente para asociarlo a otra entidad. Debe usarse dentro de
+   * una unidad de trabajo
+   * @param number Número
+   * @return PhoneNumber - Será null si no se encuentra
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención del número de teléfono
+   */
+  public PhoneNumber getReferenceByNumber(String number) throws PersistenceException {
+    return METRICS.time("getReferenceByNumber", () -> UnitOfWork.inSession(factory,
+        session -> session.bySimpleNaturalId(PhoneNumber.class).getReference(number)));
   }
 
 }
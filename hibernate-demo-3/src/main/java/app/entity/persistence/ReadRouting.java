@@ -0,0 +1,152 @@
+
+package app.entity.persistence;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+
+/**
+ * Enrutado de las lecturas entre la DB principal y la réplica de lectura. Las escrituras van siempre a la principal. Las
+ * lecturas fuera de una unidad de trabajo van a la réplica, salvo que el llamador haya escrito recientemente: durante la
+ * ventana de lectura de las propias escrituras ({@value #READ_YOUR_WRITES_MILLIS}, por defecto
+ * {@value #DEFAULT_READ_YOUR_WRITES_MILLIS} ms) sus lecturas van a la principal, de forma que ve sus propias escrituras
+ * aunque la réplica aún no las haya recibido.<br>
+ * El llamador es, por defecto, el hilo actual. Las tareas que se ejecutan en otro hilo en nombre de un llamador deben usar
+ * {@link #callAs(Object, Call)} para que compartan su ventana
+ */
+public final class ReadRouting {
+
+  /** Propiedad con la duración de la ventana de lectura de las propias escrituras, en milisegundos */
+  public static final String READ_YOUR_WRITES_MILLIS = "app.routing.readYourWritesMillis";
+
+  /** Duración por defecto de la ventana de lectura de las propias escrituras, en milisegundos */
+  public static final long DEFAULT_READ_YOUR_WRITES_MILLIS = 2_000;
+
+  /** Número de llamadores registrados a partir del cual se descartan los que ya han salido de su ventana */
+  private static final int MAX_TRACKED_CALLERS = 10_000;
+
+  /** Llamador en nombre del que se ejecuta cada hilo. Si no se indica, es el propio hilo */
+  private static final ThreadLocal<Object> CALLER = new ThreadLocal<>();
+
+  /** Instante de la última escritura de cada llamador, en nanosegundos */
+  private static final ConcurrentMap<Object, Long> LAST_WRITE = new ConcurrentHashMap<>();
+
+  /** Duración de la ventana de lectura de las propias escrituras, en nanosegundos */
+  private static volatile long windowNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_READ_YOUR_WRITES_MILLIS);
+
+  /** Constructor privado para evitar instanciación de clase */
+  private ReadRouting() {
+  }
+
+  /**
+   * Llamada ejecutada en nombre de un llamador
+   * @param <T> Tipo del resultado
+   * @param <E> Tipo de la excepción
+   */
+  @FunctionalInterface
+  public interface Call<T, E extends Exception> {
+
+    /**
+     * Ejecuta la llamada
+     * @return T
+     * @throws E En caso de error
+     */
+    T call() throws E;
+  }
+
+  /**
+   * Obtiene el llamador en nombre del que se ejecuta el hilo actual
+   * @return Object - Identificador del llamador
+   */
+  public static Object currentCaller() {
+
+    Object caller = CALLER.get();
+    return caller != null ? caller : Thread.currentThread().threadId();
+  }
+
+  /**
+   * Ejecuta una llamada en nombre de un llamador, de forma que sus lecturas y escrituras comparten su ventana de lectura de
+   * las propias escrituras
+   * @param <T>    Tipo del resultado
+   * @param <E>    Tipo de la excepción
+   * @param caller Identificador del llamador, obtenido con {@link #currentCaller()}
+   * @param call   Llamada
+   * @return T - Resultado de la llamada
+   * @throws E La excepción que lance la llamada
+   */
+  public static <T, E extends Exception> T callAs(Object caller, Call<T, E> call) throws E {
+
+    Object previous = CALLER.get();
+    CALLER.set(caller);
+
+    try {
+      return call.call();
+
+    } finally {
+      if (previous == null) {
+        CALLER.remove();
+
+      } else {
+        CALLER.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Establece la duración de la ventana de lectura de las propias escrituras
+   * @param millis Milisegundos. 0 para enviar siempre las lecturas a la réplica
+   */
+  static void setReadYourWritesMillis(long millis) {
+    windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+  }
+
+  /**
+   * Obtiene la factoría de sesiones sobre la que debe ejecutarse una lectura
+   * @param primary Factoría de sesiones de la DB principal
+   * @return SessionFactory - La factoría de la réplica, o la principal si no hay réplica, si el hilo está dentro de una
+   *         unidad de trabajo o si el llamador está dentro de su ventana de lectura de las propias escrituras
+   */
+  public static SessionFactory forRead(SessionFactory primary) {
+
+    SessionFactory replica = SessionFactoryProvider.getReplicaSessionFactory();
+
+    if (replica == null || UnitOfWork.isActive()) {
+      return primary;
+    }
+
+    Long lastWrite = LAST_WRITE.get(currentCaller());
+    return lastWrite != null && System.nanoTime() - lastWrite < windowNanos ? primary : replica;
+  }
+
+  /** Registra una escritura confirmada del llamador actual, que abre su ventana de lectura de las propias escrituras */
+  static void recordWrite() {
+
+    if (SessionFactoryProvider.getReplicaSessionFactory() == null) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    LAST_WRITE.put(currentCaller(), now);
+
+    // Se descartan los llamadores que ya han salido de su ventana
+    if (LAST_WRITE.size() > MAX_TRACKED_CALLERS) {
+
+      Iterator<Map.Entry<Object, Long>> iterator = LAST_WRITE.entrySet().iterator();
+      while (iterator.hasNext()) {
+        if (now - iterator.next().getValue() >= windowNanos) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /** Descarta las escrituras registradas de todos los llamadores */
+  static void clear() {
+    LAST_WRITE.clear();
+  }
+
+}
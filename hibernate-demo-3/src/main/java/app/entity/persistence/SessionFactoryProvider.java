@@ -0,0 +1,344 @@
+
+package app.entity.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import app.entity.persistence.cache.CacheRegionStats;
+import app.entity.persistence.migration.SchemaMigration;
+import app.entity.persistence.pool.ConnectionPoolMetrics;
+import app.entity.persistence.pool.PooledConnectionProvider;
+import app.entity.persistence.sql.SqlObserver;
+import app.metrics.MetricsRegistry;
+
+/**
+ * Proveedor de la factoría de sesiones compartida por todos los sistemas de persistencia. La factoría se construye una única
+ * vez por proceso, de forma perezosa y segura entre hilos, y se cierra al apagar la JVM o al invocar {@link #shutdown()}.<br>
+ * Si se configura una réplica de lectura (propiedades con prefijo {@value #REPLICA_PREFIX}), se construye junto a la
+ * principal una segunda factoría sobre la réplica, a la que {@link ReadRouting} envía las lecturas
+ */
+public final class SessionFactoryProvider {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionFactoryProvider.class);
+
+  /** Entidades anotadas que se registran en la factoría */
+  private static final Class<?>[] ANNOTATED_CLASSES = { app.entity.Student.class, app.entity.Address.class,
+      app.entity.Course.class, app.entity.PhoneNumber.class };
+
+  /**
+   * Prefijo de las propiedades de la réplica de lectura. Cada propiedad {@value #REPLICA_PREFIX}X sobrescribe la propiedad X
+   * en la factoría de la réplica. La réplica se activa al indicar {@value #REPLICA_PREFIX}hibernate.connection.url
+   */
+  public static final String REPLICA_PREFIX = "app.replica.";
+
+  /** Propiedades que sobrescriben las de hibernate.cfg.xml. Deben establecerse antes de construir la factoría */
+  private static final Properties OVERRIDES = new Properties();
+
+  /**
+   * Propiedades fijas de la factoría de la réplica, que pueden sobrescribirse con {@value #REPLICA_PREFIX}. La réplica no
+   * recibe escrituras a través de su factoría, por lo que una caché de segundo nivel propia nunca se invalidaría: se
+   * desactiva. Tampoco se le aplican migraciones, ya que recibe el esquema de la principal
+   */
+  private static final Properties REPLICA_DEFAULTS = new Properties();
+
+  static {
+    REPLICA_DEFAULTS.put("hibernate.cache.use_second_level_cache", "false");
+    REPLICA_DEFAULTS.put("hibernate.cache.use_query_cache", "false");
+    REPLICA_DEFAULTS.put(PooledConnectionProvider.HIKARI_PREFIX + "poolName", "hibernate-demo-replica-pool");
+    REPLICA_DEFAULTS.put(PooledConnectionProvider.HIKARI_PREFIX + "readOnly", "true");
+    REPLICA_DEFAULTS.put(SchemaMigration.ENABLED, "false");
+  }
+
+  /** Factoría de sesiones compartida */
+  private static volatile SessionFactory factory;
+
+  /** Factoría de sesiones de la réplica de lectura. Será null si no hay réplica configurada */
+  private static volatile SessionFactory replicaFactory;
+
+  /**
+   * Permisos de las transacciones de escritura, uno menos que el tamaño máximo del pool. Será null si la factoría no utiliza
+   * {@link PooledConnectionProvider}
+   */
+  private static volatile Semaphore writePermits;
+
+  /** Tiempo empleado en la última construcción de la factoría, en milisegundos. -1 si aún no se ha construido */
+  private static volatile long bootTimeMillis = -1;
+
+  /** Hook de cierre registrado en la JVM */
+  private static Thread shutdownHook;
+
+  /** Constructor privado para evitar instanciación de clase */
+  private SessionFactoryProvider() {
+  }
+
+  /**
+   * Añade propiedades que sobrescriben las definidas en hibernate.cfg.xml (por ejemplo, para apuntar a otra base de datos)
+   * @param properties Propiedades de configuración de Hibernate
+   * @throws IllegalStateException En caso de que la factoría de sesiones ya haya sido construida
+   */
+  public static synchronized void configure(Properties properties) {
+
+    if (factory != null) {
+      throw new IllegalStateException("La factoría de sesiones ya ha sido construida. No se puede reconfigurar");
+    }
+
+    OVERRIDES.putAll(properties);
+  }
+
+  /**
+   * Obtiene la factoría de sesiones compartida, construyéndola en la primera llamada
+   * @return SessionFactory
+   * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
+   */
+  public static SessionFactory getSessionFactory() {
+
+    SessionFactory result = factory;
+
+    if (result == null) {
+      synchronized (SessionFactoryProvider.class) {
+
+        result = factory;
+        if (result == null) {
+          result = buildSessionFactory();
+          factory = result;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Obtiene la factoría de sesiones de la réplica de lectura, construyendo las factorías en la primera llamada
+   * @return SessionFactory - Será null si no hay réplica configurada o si no pudo construirse su factoría
+   * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
+   */
+  public static SessionFactory getReplicaSessionFactory() {
+
+    getSessionFactory();
+    return replicaFactory;
+  }
+
+  /**
+   * Obtiene el tiempo empleado en construir la factoría de sesiones
+   * @return long - Milisegundos, o -1 si la factoría aún no se ha construido
+   */
+  public static long getBootTimeMillis() {
+    return bootTimeMillis;
+  }
+
+  /**
+   * Obtiene las métricas del pool de conexiones de la factoría compartida, construyéndola si es necesario
+   * @return ConnectionPoolMetrics - Será null si la factoría no utiliza {@link PooledConnectionProvider}
+   */
+  public static ConnectionPoolMetrics getConnectionPoolMetrics() {
+
+    PooledConnectionProvider connectionProvider = getPooledConnectionProvider(getSessionFactory());
+    return connectionProvider == null ? null : connectionProvider.getMetrics();
+  }
+
+  /**
+   * Obtiene el observador de las sentencias SQL de la factoría compartida, construyéndola si es necesario
+   * @return SqlObserver - Será null si la factoría no utiliza {@link PooledConnectionProvider} o si el observador está
+   *         desactivado
+   */
+  public static SqlObserver getSqlObserver() {
+
+    PooledConnectionProvider connectionProvider = getPooledConnectionProvider(getSessionFactory());
+    return connectionProvider == null ? null : connectionProvider.getSqlObserver();
+  }
+
+  /**
+   * Obtiene los permisos de las transacciones de escritura de la factoría compartida, construyéndola si es necesario. Cada
+   * transacción de escritura puede necesitar una segunda conexión para la transacción aislada del generador de
+   * identificadores (GenerationType.TABLE), por lo que hay un permiso menos que conexiones en el pool: si todas las conexiones
+   * estuvieran ocupadas por transacciones de escritura esperando al generador, ninguna podría continuar
+   * @return Semaphore - Será null si la factoría no utiliza {@link PooledConnectionProvider}
+   */
+  static Semaphore getWritePermits() {
+
+    getSessionFactory();
+    return writePermits;
+  }
+
+  /**
+   * Obtiene las estadísticas de aciertos y fallos de cada región de la caché de segundo nivel. Requiere
+   * hibernate.generate_statistics
+   * @return List(CacheRegionStats)
+   */
+  public static List<CacheRegionStats> getCacheRegionStatistics() {
+
+    Statistics statistics = getSessionFactory().getStatistics();
+    List<CacheRegionStats> result = new ArrayList<>();
+
+    for (String region : statistics.getSecondLevelCacheRegionNames()) {
+      CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+
+      if (regionStatistics != null) {
+        // JCache no informa del número de elementos en memoria: Hibernate lo indica con un valor propio, que se traduce a -1
+        long elementsInMemory = regionStatistics.getElementCountInMemory();
+        if (elementsInMemory == CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN) {
+          elementsInMemory = -1;
+        }
+
+        result.add(new CacheRegionStats(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+            regionStatistics.getPutCount(), elementsInMemory));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Cierra la factoría de sesiones compartida junto con sus conexiones. Una llamada posterior a
+   * {@link #getSessionFactory()} volverá a construirla
+   */
+  public static synchronized void shutdown() {
+
+    if (replicaFactory != null) {
+
+      replicaFactory.close();
+      replicaFactory = null;
+      ReadRouting.clear();
+      LOGGER.info("Factoría de sesiones de la réplica cerrada");
+    }
+
+    if (factory != null) {
+
+      MetricsRegistry.unregisterMBean();
+      factory.close();
+      factory = null;
+      LOGGER.info("Factoría de sesiones cerrada");
+    }
+
+    if (shutdownHook != null && !Thread.currentThread().equals(shutdownHook)) {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    }
+    shutdownHook = null;
+  }
+
+  /**
+   * Construye la factoría de sesiones a partir de hibernate.cfg.xml y de las propiedades sobrescritas, tras aplicar las
+   * migraciones pendientes del esquema
+   * @return SessionFactory
+   * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
+   */
+  private static SessionFactory buildSessionFactory() {
+
+    long start = System.nanoTime();
+
+    try {
+      Configuration configuration = new Configuration().configure();
+      configuration.addProperties(OVERRIDES);
+
+      SchemaMigration.migrate(configuration.getProperties());
+
+      for (Class<?> annotatedClass : ANNOTATED_CLASSES) {
+        configuration.addAnnotatedClass(annotatedClass);
+      }
+
+      SessionFactory result = configuration.buildSessionFactory();
+      Properties properties = configuration.getProperties();
+
+      PooledConnectionProvider connectionProvider = getPooledConnectionProvider(result);
+      writePermits = connectionProvider == null ? null
+          : new Semaphore(Math.max(connectionProvider.getMetrics().getMaximumPoolSize() - 1, 1));
+
+      String readYourWrites = properties.getProperty(ReadRouting.READ_YOUR_WRITES_MILLIS);
+      ReadRouting.setReadYourWritesMillis(readYourWrites == null ? ReadRouting.DEFAULT_READ_YOUR_WRITES_MILLIS
+          : Long.parseLong(readYourWrites.trim()));
+      replicaFactory = buildReplicaSessionFactory(properties);
+
+      bootTimeMillis = (System.nanoTime() - start) / 1_000_000;
+      LOGGER.info("Factoría de sesiones construida en {} ms", bootTimeMillis);
+
+      if (Boolean.parseBoolean(properties.getProperty(MetricsRegistry.JMX_ENABLED, "true").trim())) {
+        MetricsRegistry.registerMBean();
+      }
+
+      // Se cierra la factoría al apagar la JVM
+      shutdownHook = new Thread(SessionFactoryProvider::shutdown, "session-factory-shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+      return result;
+
+    } catch (Exception ex) {
+      LOGGER.error("Error al construir la factoría de sesiones", ex);
+      throw new ExceptionInInitializerError("Error al crear un objeto de la clase SessionFactory");
+    }
+  }
+
+  /**
+   * Obtiene el proveedor de conexiones de una factoría, si es {@link PooledConnectionProvider}
+   * @param sessionFactory Factoría de sesiones
+   * @return PooledConnectionProvider - Será null si la factoría utiliza otro proveedor de conexiones
+   */
+  private static PooledConnectionProvider getPooledConnectionProvider(SessionFactory sessionFactory) {
+
+    ConnectionProvider connectionProvider = sessionFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+        .getService(ConnectionProvider.class);
+
+    if (connectionProvider != null && connectionProvider.isUnwrappableAs(PooledConnectionProvider.class)) {
+      return connectionProvider.unwrap(PooledConnectionProvider.class);
+    }
+
+    return null;
+  }
+
+  /**
+   * Construye la factoría de sesiones de la réplica de lectura, si está configurada. Si no puede construirse, las lecturas
+   * se envían a la principal
+   * @param properties Propiedades de configuración de la factoría principal
+   * @return SessionFactory - Será null si no hay réplica configurada o si no pudo construirse
+   */
+  private static SessionFactory buildReplicaSessionFactory(Properties properties) {
+
+    Properties replicaProperties = new Properties();
+
+    for (String name : properties.stringPropertyNames()) {
+      if (name.startsWith(REPLICA_PREFIX)) {
+        replicaProperties.put(name.substring(REPLICA_PREFIX.length()), properties.getProperty(name));
+      }
+    }
+
+    if (!replicaProperties.containsKey(AvailableSettings.URL)) {
+      return null;
+    }
+
+    try {
+      Configuration configuration = new Configuration().configure();
+      configuration.addProperties(OVERRIDES);
+      configuration.addProperties(REPLICA_DEFAULTS);
+      configuration.addProperties(replicaProperties);
+
+      SchemaMigration.migrate(configuration.getProperties());
+
+      for (Class<?> annotatedClass : ANNOTATED_CLASSES) {
+        configuration.addAnnotatedClass(annotatedClass);
+      }
+
+      SessionFactory result = configuration.buildSessionFactory();
+      LOGGER.info("Factoría de sesiones de la réplica de lectura construida");
+
+      return result;
+
+    } catch (Exception ex) {
+      LOGGER.error("Error al construir la factoría de sesiones de la réplica. Las lecturas se envían a la principal", ex);
+      return null;
+    }
+  }
+
+}
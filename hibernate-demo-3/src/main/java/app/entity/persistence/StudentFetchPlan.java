@@ -0,0 +1,66 @@
+
+package app.entity.persistence;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.graph.RootGraph;
+
+import app.entity.Student;
+import app.entity.constants.DbConstants;
+
+/**
+ * Planes de carga de un estudiante. Cada caso de uso elige el plan que se ajusta a la información que necesita, de forma que
+ * las relaciones no utilizadas no se consulten
+ */
+public enum StudentFetchPlan {
+
+  /** Sólo los atributos propios del estudiante. Suficiente para modificarlos o para obtener su ID */
+  IDENTITY_ONLY(DbConstants.STUDENT_IDENTITY_GRAPH),
+
+  /** Atributos propios, dirección y curso. Adecuado para listados */
+  LIST_VIEW(DbConstants.STUDENT_LIST_GRAPH),
+
+  /** Atributos propios, dirección, curso y números de teléfono */
+  FULL_DETAIL(DbConstants.STUDENT_DETAIL_GRAPH);
+
+  /** Nombre del grafo de carga asociado */
+  private final String graphName;
+
+  /**
+   * Constructor
+   * @param graphName Nombre del grafo de carga asociado
+   */
+  StudentFetchPlan(String graphName) {
+    this.graphName = graphName;
+  }
+
+  /**
+   * Inicializa las relaciones incluidas en el plan que no se hayan cargado ya. Es necesario cuando el estudiante se obtiene
+   * de la caché de segundo nivel, ya que en ese caso no se aplica el grafo de carga. Debe llamarse con la sesión abierta
+   * @param student Estudiante. Puede ser null
+   */
+  void initialize(Student student) {
+
+    if (student == null || this == IDENTITY_ONLY) {
+      return;
+    }
+
+    Hibernate.initialize(student.getAddress());
+    Hibernate.initialize(student.getCourse());
+
+    if (this == FULL_DETAIL) {
+      Hibernate.initialize(student.getPhoneNumbers());
+    }
+  }
+
+  /**
+   * Obtiene el grafo de carga asociado al plan
+   * @param session Sesión
+   * @return RootGraph(Student)
+   */
+  @SuppressWarnings("unchecked")
+  RootGraph<Student> graph(Session session) {
+    return (RootGraph<Student>) session.getEntityGraph(graphName);
+  }
+
+}
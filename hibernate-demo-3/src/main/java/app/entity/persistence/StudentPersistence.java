@@ -1,157 +1,574 @@
 
 package app.entity.persistence;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
-import org.hibernate.cfg.Configuration;
-import org.hibernate.query.Query;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
+import app.entity.Address;
+import app.entity.Course;
+import app.entity.PhoneNumber;
 import app.entity.Student;
+import app.entity.dto.StudentSummary;
 import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import app.metrics.MetricsRegistry;
 
 /** Sistema de persistencia de estudiantes */
 public class StudentPersistence {
 
+  /** Métricas de las operaciones */
+  private static final ComponentMetrics METRICS = MetricsRegistry.forComponent(StudentPersistence.class);
+
+  /**
+   * Número de filas que el driver JDBC obtiene en cada viaje a la DB al recorrer estudiantes en streaming. También es el
+   * número de estudiantes tras el que se vacía la caché de primer nivel
+   */
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  /** Número máximo de estudiantes eliminados por cada sentencia de borrado masivo */
+  private static final int DELETE_CHUNK_SIZE = 500;
+
+  /** Número máximo de estudiantes modificados por cada sentencia de actualización masiva */
+  private static final int UPDATE_CHUNK_SIZE = 500;
+
   /** Factoría de sesiones */
   private SessionFactory factory;
 
   /**
-   * Constructor de la clase. Inicializa la factoría de sesiones
+   * Constructor de la clase. Obtiene la factoría de sesiones compartida
    * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
    */
   public StudentPersistence() {
-
-    try {
-      factory = new Configuration().configure().addAnnotatedClass(app.entity.Student.class)
-          .addAnnotatedClass(app.entity.Address.class).addAnnotatedClass(app.entity.Course.class)
-          .addAnnotatedClass(app.entity.PhoneNumber.class).buildSessionFactory();
-
-    } catch (Exception ex) {
-      throw new ExceptionInInitializerError("Error al crear un objeto de la clase SessionFactory");
-    }
+    factory = SessionFactoryProvider.getSessionFactory();
   }
 
   /**
-   * Almacena / Modifica un estudiante en la DB
+   * Almacena / Modifica un estudiante en la DB. Dentro de una unidad de trabajo, se usa su sesión y transacción
    * @param student Estudiante del sistema. Será almacenado si no dispone de id, o actualizado en caso contrario
    * @return Integer - ID generado del nuevo estudiante
    * @throws PersistenceException En caso de que exista un error durante el proceso de almacenamiento del estudiante
    */
   public Integer saveOrUpdateStudent(Student student) throws PersistenceException {
 
-    Session session = factory.openSession();
-    Transaction transaction = null;
+    return METRICS.time("saveOrUpdateStudent", () -> UnitOfWork.inTransaction(factory, session -> {
 
-    // Se abre sesión y la transacción
-    try {
-      transaction = session.beginTransaction();
+      // Si el estudiante ya pertenece a la sesión de la unidad de trabajo, sus cambios se envían al confirmarla
+      // Se persiste igualmente para propagar la operación a las entidades nuevas que referencie
+      if (session.contains(student)) {
+        session.persist(student);
+        return student.getId();
+      }
 
       // Se almacena el estudiante y se obtiene su ID generado
-      Student mergedStudent = session.merge(student);
-      Integer studentId = mergedStudent.getId();
+      return session.merge(student).getId();
+    }));
+  }
 
-      transaction.commit();
-      return studentId;
+  /**
+   * Almacena / Modifica un conjunto de estudiantes en una única sesión y transacción. Las inserciones se envían a la DB por
+   * lotes de hibernate.jdbc.batch_size sentencias, y la sesión se vacía tras cada lote para que la caché de primer nivel no
+   * crezca con el número de estudiantes. Se ejecuta siempre en una sesión propia, con su propio permiso de escritura y su
+   * propia conexión, por lo que no puede invocarse dentro de una unidad de trabajo
+   * @param students Estudiantes del sistema. Serán almacenados si no disponen de id, o actualizados en caso contrario
+   * @return List(Integer) - IDs de los estudiantes, en el mismo orden de iteración que la colección recibida
+   * @throws PersistenceException  En caso de que exista un error durante el proceso de almacenamiento de los estudiantes
+   * @throws IllegalStateException Si el hilo está dentro de una unidad de trabajo
+   */
+  public List<Integer> saveStudents(Collection<Student> students) throws PersistenceException {
 
-    } catch (Exception e) {
+    // Ocupar un segundo permiso y una segunda conexión desde un hilo que ya tiene los suyos puede bloquear el pool
+    if (UnitOfWork.isActive()) {
+      throw new IllegalStateException("El almacenamiento masivo de estudiantes no puede ejecutarse dentro de una unidad de "
+          + "trabajo");
+    }
 
-      if (transaction != null) {
-        transaction.rollback();
+    return METRICS.time("saveStudents", () -> {
+
+      Semaphore permits = UnitOfWork.acquireWritePermit();
+      Session session = factory.openSession();
+      Transaction transaction = null;
+
+      int batchSize = factory.unwrap(SessionFactoryImplementor.class).getSessionFactoryOptions().getJdbcBatchSize();
+      if (batchSize < 1) {
+        batchSize = 1;
       }
-      throw new PersistenceException(e.getMessage());
 
-    } finally {
-      session.close();
-    }
+      try {
+        transaction = session.beginTransaction();
+
+        List<Integer> studentIds = new ArrayList<>(students.size());
+        int pending = 0;
+
+        for (Student student : students) {
+
+          // Se persiste directamente si todo el grafo es nuevo. Si referencia entidades ya almacenadas, se fusiona
+          if (student.getId() == null && isTransientGraph(session, student)) {
+            session.persist(student);
+            studentIds.add(student.getId());
+
+          } else {
+            studentIds.add(session.merge(student).getId());
+          }
+
+          // Se envía el lote y se vacía la caché de primer nivel
+          if (++pending == batchSize) {
+            session.flush();
+            session.clear();
+            pending = 0;
+          }
+        }
+
+        transaction.commit();
+        ReadRouting.recordWrite();
+        return studentIds;
+
+      } catch (Exception e) {
+
+        if (transaction != null) {
+          transaction.rollback();
+        }
+        throw new PersistenceException(e.getMessage(), e);
+
+      } finally {
+        session.close();
+        UnitOfWork.releaseWritePermit(permits);
+      }
+    });
   }
 
   /**
-   * Obtiene una lista con todos los estudiantes almacenados
+   * Obtiene una lista con todos los estudiantes almacenados junto con todas sus relaciones
    * @return List(Student)
    * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de los estudiantes
    */
   public List<Student> getAllStudent() throws PersistenceException {
+    return getAllStudent(StudentFetchPlan.FULL_DETAIL);
+  }
 
-    // Se abre la sesión y se lanza la consulta
-    try (Session session = factory.openSession()) {
+  /**
+   * Obtiene una lista con todos los estudiantes almacenados, cargando sólo las relaciones incluidas en el plan de carga
+   * @param plan Plan de carga
+   * @return List(Student)
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de los estudiantes
+   */
+  public List<Student> getAllStudent(StudentFetchPlan plan) throws PersistenceException {
 
-      return session.createQuery("FROM Student", app.entity.Student.class).list();
+    // Se lanza la consulta con el grafo de carga del plan
+    return METRICS.time("getAllStudent", () -> UnitOfWork.inReadSession(factory,
+        session -> session.createQuery("FROM Student", app.entity.Student.class).applyFetchGraph(plan.graph(session))
+            .list()));
+  }
 
-    } catch (Exception e) {
-      throw new PersistenceException(e.getMessage());
-    }
+  /**
+   * Obtiene todos los estudiantes almacenados como un Stream respaldado por un cursor de la DB. Los estudiantes se leen bajo
+   * demanda en bloques de {@value #STREAM_FETCH_SIZE} filas, y la caché de primer nivel se vacía tras cada bloque, por lo que
+   * el consumo de memoria no depende del número de estudiantes. El Stream mantiene abierta una sesión y una conexión hasta
+   * que se cierra, por lo que debe usarse en un bloque try-with-resources. La sesión es siempre propia, aunque se invoque
+   * dentro de una unidad de trabajo, y puede abrirse sobre la réplica de lectura. Las métricas de la operación sólo miden la
+   * apertura del cursor, no su recorrido
+   * @param plan Plan de carga. No puede incluir colecciones ({@link StudentFetchPlan#FULL_DETAIL})
+   * @return Stream(Student) - Estudiantes ordenados por ID
+   * @throws PersistenceException     En caso de que exista un error durante el proceso de obtención de los estudiantes
+   * @throws IllegalArgumentException Si el plan de carga incluye colecciones
+   */
+  public Stream<Student> streamAllStudent(StudentFetchPlan plan) throws PersistenceException {
+
+    return METRICS.time("streamAllStudent", () -> {
+
+      if (plan == StudentFetchPlan.FULL_DETAIL) {
+        throw new IllegalArgumentException("No se pueden recorrer en streaming estudiantes con colecciones cargadas");
+      }
+
+      Session session = ReadRouting.forRead(factory).openSession();
+
+      try {
+        // Lectura de sólo lectura, sin instantáneas para la comprobación de cambios ni escrituras en la caché de segundo
+        // nivel
+        session.setDefaultReadOnly(true);
+        session.setCacheMode(CacheMode.IGNORE);
+
+        ScrollableResults<Student> results = session
+            .createQuery("FROM Student s ORDER BY s.id", app.entity.Student.class).applyFetchGraph(plan.graph(session))
+            .setFetchSize(STREAM_FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+
+        Spliterator<Student> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+            Spliterator.ORDERED | Spliterator.NONNULL) {
+
+          /** Estudiantes leídos desde el último vaciado de la caché de primer nivel */
+          private int pending;
+
+          @Override
+          public boolean tryAdvance(Consumer<? super Student> action) {
+
+            if (!results.next()) {
+              return false;
+            }
+
+            if (++pending > STREAM_FETCH_SIZE) {
+              session.clear();
+              pending = 1;
+            }
+
+            action.accept(results.get());
+            return true;
+          }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+          results.close();
+          session.close();
+        });
+
+      } catch (Exception e) {
+
+        session.close();
+        throw new PersistenceException(e.getMessage(), e);
+      }
+    });
+  }
+
+  /**
+   * Obtiene una página de estudiantes ordenados por ID mediante paginación por clave: la página comienza en el primer
+   * estudiante cuyo ID es mayor que el último de la página anterior, por lo que el coste no depende de la posición de la
+   * página
+   * @param afterId ID del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit   Número máximo de estudiantes de la página
+   * @param plan    Plan de carga
+   * @return List(Student) - Vacía si no hay más estudiantes
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de los estudiantes
+   */
+  public List<Student> getPage(Integer afterId, int limit, StudentFetchPlan plan) throws PersistenceException {
+
+    int lowerBound = afterId == null ? 0 : afterId;
+
+    return METRICS.time("getPage", () -> UnitOfWork.inReadSession(factory, session -> {
+
+      if (plan != StudentFetchPlan.FULL_DETAIL) {
+        return session.createQuery("FROM Student s WHERE s.id > :after ORDER BY s.id", app.entity.Student.class)
+            .setParameter("after", lowerBound).applyFetchGraph(plan.graph(session)).setMaxResults(limit).list();
+      }
+
+      // Las colecciones no se pueden limitar en la misma consulta: primero se obtienen los IDs de la página y después los
+      // estudiantes con todas sus relaciones
+      List<Integer> ids = session
+          .createQuery("SELECT s.id FROM Student s WHERE s.id > :after ORDER BY s.id", Integer.class)
+          .setParameter("after", lowerBound).setMaxResults(limit).list();
+
+      if (ids.isEmpty()) {
+        return new ArrayList<>();
+      }
+
+      return session.createQuery("FROM Student s WHERE s.id IN :ids ORDER BY s.id", app.entity.Student.class)
+          .setParameter("ids", ids).applyFetchGraph(plan.graph(session)).list();
+    }));
+  }
+
+  /**
+   * Obtiene el resumen de todos los estudiantes almacenados mediante una única consulta de proyección. No se cargan entidades
+   * en la sesión, por lo que no hay instantáneas para la comprobación de cambios ni consultas de relaciones
+   * @return List(StudentSummary) - Resúmenes ordenados por DNI
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de los estudiantes
+   */
+  public List<StudentSummary> getAllStudentSummary() throws PersistenceException {
+    return METRICS.time("getAllStudentSummary", () -> summaryPage(null, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Obtiene una página de resúmenes de estudiantes ordenados por DNI mediante paginación por clave y una única consulta de
+   * proyección
+   * @param afterDni DNI del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit    Número máximo de resúmenes de la página
+   * @return List(StudentSummary) - Vacía si no hay más estudiantes
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de los estudiantes
+   */
+  public List<StudentSummary> getStudentSummaryPage(String afterDni, int limit) throws PersistenceException {
+    return METRICS.time("getStudentSummaryPage", () -> summaryPage(afterDni, limit));
+  }
+
+  /**
+   * Obtiene una página de resúmenes de estudiantes sin registrarla en las métricas, para que las operaciones que la usan
+   * cuenten una única llamada
+   * @param afterDni DNI del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit    Número máximo de resúmenes de la página
+   * @return List(StudentSummary) - Vacía si no hay más estudiantes
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención de los estudiantes
+   */
+  private List<StudentSummary> summaryPage(String afterDni, int limit) throws PersistenceException {
+
+    // Se proyecta directamente sobre el record, uniendo dirección y curso en la misma consulta
+    return UnitOfWork.inReadSession(factory, session -> session
+        .createQuery("SELECT new app.entity.dto.StudentSummary(s.dni, s.name, s.birthdate, a.city, c.name) "
+            + "FROM Student s LEFT JOIN s.address a LEFT JOIN s.course c WHERE s.dni > :after ORDER BY s.dni",
+            StudentSummary.class)
+        .setParameter("after", afterDni == null ? "" : afterDni).setMaxResults(limit).list());
   }
 
   /**
-   * Elimina un estudiante dado su ID
+   * Elimina un estudiante dado su DNI, junto con su dirección y sus asociaciones con números de teléfono, mediante sentencias
+   * de borrado directas en una única sesión y transacción. Si no existe ningún estudiante con ese DNI, no se realiza ninguna
+   * acción
    * @param dni DNI del estudiante
    * @throws PersistenceException En caso de que exista un error durante el proceso de eliminación del estudiante
    */
   public void deleteStudent(String dni) throws PersistenceException {
+    METRICS.run("deleteStudent", () -> delete(List.of(dni)));
+  }
 
-    // Se abre sesión y transacción
-    Session session = factory.openSession();
-    Transaction transaction = null;
+  /**
+   * Elimina los estudiantes con los DNIs indicados, junto con sus direcciones y sus asociaciones con números de teléfono, en
+   * una única transacción. No se cargan las entidades: por cada bloque de {@value #DELETE_CHUNK_SIZE} DNIs se obtienen sus
+   * IDs y se lanza una sentencia de borrado por tabla (tabla de unión, estudiantes y direcciones). Los números de teléfono
+   * no se eliminan, ya que pueden estar compartidos.<br>
+   * Las regiones de la caché de segundo nivel afectadas (estudiantes, direcciones, sus identificadores naturales y las
+   * colecciones de la tabla de unión) se invalidan al ejecutar las sentencias. Dentro de una unidad de trabajo, las entidades
+   * eliminadas que ya estuviesen cargadas en su sesión no deben volver a usarse
+   * @param dnis DNIs de los estudiantes. Los que no correspondan a ningún estudiante se ignoran
+   * @return int - Número de estudiantes eliminados
+   * @throws PersistenceException En caso de que exista un error durante el proceso de eliminación de los estudiantes
+   */
+  public int deleteStudents(Collection<String> dnis) throws PersistenceException {
+
+    // Se eliminan los DNIs repetidos, manteniendo el orden
+    List<String> pending = new ArrayList<>(new LinkedHashSet<>(dnis));
 
-    try {
-      transaction = session.beginTransaction();
+    return METRICS.time("deleteStudents", () -> delete(pending));
+  }
 
-      // Se obtiene el número de teléfono dado el ID por parámetro y se elimina
-      Student student = findByDni(dni);
-      session.remove(student);
+  /**
+   * Elimina los estudiantes con los DNIs indicados en una única transacción, por bloques de {@value #DELETE_CHUNK_SIZE} DNIs,
+   * sin registrarlo en las métricas
+   * @param dnis DNIs de los estudiantes, sin repetir
+   * @return int - Número de estudiantes eliminados
+   * @throws PersistenceException En caso de que exista un error durante el proceso de eliminación de los estudiantes
+   */
+  private int delete(List<String> dnis) throws PersistenceException {
 
-      transaction.commit();
+    return UnitOfWork.inTransaction(factory, session -> {
 
-    } catch (Exception e) {
+      int deleted = 0;
 
-      if (transaction != null) {
-        transaction.rollback();
+      for (int from = 0; from < dnis.size(); from += DELETE_CHUNK_SIZE) {
+        deleted += deleteChunk(session, dnis.subList(from, Math.min(from + DELETE_CHUNK_SIZE, dnis.size())));
       }
-      throw new PersistenceException(e.getMessage());
 
-    } finally {
-      session.close();
-    }
+      return deleted;
+    });
   }
 
   /**
-   * Obtiene un estudiante dado su dni, o null si no se encuentra ninguno que coincida con los parámetros aportados
+   * Asigna un curso a los estudiantes con los DNIs indicados en una única transacción, sin cargar las entidades: se lanza una
+   * sentencia de actualización por cada bloque de {@value #UPDATE_CHUNK_SIZE} DNIs. Los estudiantes que ya tienen el curso no
+   * se modifican, y la versión de los modificados se incrementa para que las modificaciones concurrentes que partían de la
+   * anterior fallen por el bloqueo optimista.<br>
+   * Hibernate invalida las regiones de la caché de segundo nivel de los estudiantes al ejecutar las sentencias. Dentro de una
+   * unidad de trabajo, los estudiantes ya cargados en su sesión conservan el curso anterior
+   * @param dnis   DNIs de los estudiantes. Los que no correspondan a ningún estudiante se ignoran
+   * @param course Curso. Basta con una referencia
+   * @return int - Número de estudiantes modificados
+   * @throws PersistenceException En caso de que exista un error durante el proceso de actualización de los estudiantes
+   */
+  public int setCourse(Collection<String> dnis, Course course) throws PersistenceException {
+
+    // Se eliminan los DNIs repetidos, manteniendo el orden
+    List<String> pending = new ArrayList<>(new LinkedHashSet<>(dnis));
+
+    return METRICS.time("setCourse", () -> UnitOfWork.inTransaction(factory, session -> {
+
+      int updated = 0;
+
+      for (int from = 0; from < pending.size(); from += UPDATE_CHUNK_SIZE) {
+        updated += session
+            .createMutationQuery("UPDATE VERSIONED Student s SET s.course = :course "
+                + "WHERE s.dni IN :dnis AND (s.course IS NULL OR s.course <> :course)")
+            .setParameter("course", course)
+            .setParameter("dnis", pending.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, pending.size())))
+            .executeUpdate();
+      }
+
+      return updated;
+    }));
+  }
+
+  /**
+   * Traslada todos los estudiantes de un curso a otro en una única transacción, sin cargar las entidades. Los IDs de los
+   * estudiantes del curso de origen se recorren por páginas de {@value #UPDATE_CHUNK_SIZE} mediante paginación por clave, y
+   * se lanza una sentencia de actualización por página, por lo que el número de sentencias depende sólo del número de
+   * estudiantes. La versión de los estudiantes trasladados se incrementa.<br>
+   * Como en {@link #setCourse(Collection, Course)}, la caché de segundo nivel de los estudiantes se invalida y los estudiantes
+   * ya cargados en la sesión de una unidad de trabajo no se actualizan
+   * @param from Curso de origen. Basta con una referencia
+   * @param to   Curso de destino. Basta con una referencia
+   * @return int - Número de estudiantes trasladados
+   * @throws PersistenceException En caso de que exista un error durante el proceso de actualización de los estudiantes
+   */
+  public int transferCourse(Course from, Course to) throws PersistenceException {
+
+    return METRICS.time("transferCourse", () -> UnitOfWork.inTransaction(factory, session -> {
+
+      int updated = 0;
+      int lastId = Integer.MIN_VALUE;
+      List<Integer> ids;
+
+      do {
+        // El índice sobre el curso incluye el ID, por lo que cada página se lee en orden sin ordenar la tabla
+        ids = session
+            .createQuery("SELECT s.id FROM Student s WHERE s.course = :from AND s.id > :last ORDER BY s.id", Integer.class)
+            .setParameter("from", from).setParameter("last", lastId).setMaxResults(UPDATE_CHUNK_SIZE).list();
+
+        if (!ids.isEmpty()) {
+
+          // Se repite la condición del curso por si algún estudiante de la página ha cambiado de curso entretanto
+          updated += session
+              .createMutationQuery("UPDATE VERSIONED Student s SET s.course = :to WHERE s.id IN :ids AND s.course = :from")
+              .setParameter("to", to).setParameter("from", from).setParameter("ids", ids).executeUpdate();
+
+          lastId = ids.get(ids.size() - 1);
+        }
+
+      } while (ids.size() == UPDATE_CHUNK_SIZE);
+
+      return updated;
+    }));
+  }
+
+  /**
+   * Obtiene un estudiante dado su dni junto con todas sus relaciones, o null si no se encuentra ninguno que coincida con los
+   * parámetros aportados
    * @param dni DNI
    * @return Student - Será null si no se encuentra
    * @throws PersistenceException En caso de que exista un error durante el proceso de obtención del estudiante
    */
   public Student findByDni(String dni) throws PersistenceException {
+    return findByDni(dni, StudentFetchPlan.FULL_DETAIL);
+  }
+
+  /**
+   * Obtiene un estudiante dado su dni, cargando sólo las relaciones incluidas en el plan de carga, o null si no se encuentra
+   * ninguno que coincida con los parámetros aportados. Dentro de una unidad de trabajo, el estudiante sigue gestionado por
+   * su sesión y sus cambios se almacenan al confirmarla
+   * @param dni  DNI
+   * @param plan Plan de carga
+   * @return Student - Será null si no se encuentra
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención del estudiante
+   */
+  public Student findByDni(String dni, StudentFetchPlan plan) throws PersistenceException {
+
+    // Se resuelve el DNI como identificador natural. Si está en caché, no se lanza ninguna consulta
+    return METRICS.time("findByDni", () -> UnitOfWork.inReadSession(factory, session -> {
+
+      Student student = session.bySimpleNaturalId(Student.class).withFetchGraph(plan.graph(session)).load(dni);
+      plan.initialize(student);
 
-    try (Session session = factory.openSession()) {
+      return student;
+    }));
+  }
 
-      // Se crea la consulta y se pasan los parámetros
-      Query<Student> query = session.createQuery("FROM Student WHERE dni = :num", app.entity.Student.class);
+  /**
+   * Obtiene el DNI del estudiante que tiene asignada una dirección, o null si no está asignada a ninguno. Una dirección
+   * pertenece como mucho a un estudiante
+   * @param address Dirección. Basta con una referencia
+   * @return String - Será null si ningún estudiante tiene asignada la dirección
+   * @throws PersistenceException En caso de que exista un error durante el proceso de obtención del estudiante
+   */
+  public String findDniByAddress(Address address) throws PersistenceException {
 
-      query.setParameter("num", dni);
+    return METRICS.time("findDniByAddress", () -> UnitOfWork.inReadSession(factory,
+        session -> session.createQuery("SELECT s.dni FROM Student s WHERE s.address = :address", String.class)
+            .setParameter("address", address).uniqueResult()));
+  }
+
+  /**
+   * Elimina un bloque de estudiantes junto con sus direcciones y sus asociaciones con números de teléfono
+   * @param session Sesión con una transacción activa
+   * @param dnis    DNIs de los estudiantes
+   * @return int - Número de estudiantes eliminados
+   */
+  private static int deleteChunk(Session session, List<String> dnis) {
 
-      // Se obtiene la lista de ciudades con la descripción y ciudad dados
-      List<Student> studentList = query.list();
+    // Se obtienen los IDs de los estudiantes y de sus direcciones
+    List<Object[]> keys = session
+        .createQuery("SELECT s.id, a.id FROM Student s LEFT JOIN s.address a WHERE s.dni IN :dnis", Object[].class)
+        .setParameter("dnis", dnis).list();
 
-      // Debería existir sólo un resultado como mucho. Si hay más, hay un fallo en el sistema de guardado
-      Student student = null;
+    if (keys.isEmpty()) {
+      return 0;
+    }
 
-      if (studentList.size() == 1) {
-        student = studentList.get(0);
+    List<Integer> studentIds = new ArrayList<>(keys.size());
+    List<Integer> addressIds = new ArrayList<>(keys.size());
 
-      } else if (!studentList.isEmpty()) {
+    for (Object[] key : keys) {
+      studentIds.add((Integer) key[0]);
 
-        throw new PersistenceException(
-            "Se ha obtenido más de un dato con el mismo DNI. Es necesario revisar el proceso de guardado");
+      if (key[1] != null) {
+        addressIds.add((Integer) key[1]);
       }
-      return student;
+    }
+
+    // Estudiantes. Hibernate elimina antes sus filas de la tabla de unión con los números de teléfono, ya que la relación
+    // pertenece al estudiante. Después se eliminan sus direcciones, ya sin referencias
+    int deleted = session.createMutationQuery("DELETE FROM Student s WHERE s.id IN :ids").setParameter("ids", studentIds)
+        .executeUpdate();
+
+    if (!addressIds.isEmpty()) {
+      session.createMutationQuery("DELETE FROM Address a WHERE a.id IN :ids").setParameter("ids", addressIds)
+          .executeUpdate();
+    }
+
+    return deleted;
+  }
+
+  /**
+   * Comprueba si ninguna de las entidades en cascada del estudiante (dirección y números de teléfono) ha sido almacenada
+   * previamente. Las que ya ha persistido la propia sesión, como un número de teléfono compartido con un estudiante anterior
+   * del mismo lote, cuentan como nuevas: tienen ID porque el generador lo asigna al persistir, pero la persistencia en
+   * cascada no las vuelve a insertar
+   * @param session Sesión del lote
+   * @param student Estudiante
+   * @return boolean
+   */
+  private static boolean isTransientGraph(Session session, Student student) {
 
-    } catch (Exception e) {
+    if (student.getAddress() != null && isStored(session, student.getAddress().getId(), student.getAddress())) {
+      return false;
+    }
 
-      throw new PersistenceException(e.getMessage());
+    if (student.getPhoneNumbers() != null) {
+      for (PhoneNumber phoneNumber : student.getPhoneNumbers()) {
+        if (isStored(session, phoneNumber.getId(), phoneNumber)) {
+          return false;
+        }
+      }
     }
+
+    return true;
+  }
+
+  /**
+   * Comprueba si una entidad se almacenó antes de la sesión dada
+   * @param session Sesión
+   * @param id      ID de la entidad
+   * @param entity  Entidad
+   * @return boolean
+   */
+  private static boolean isStored(Session session, Integer id, Object entity) {
+    return id != null && !session.contains(entity);
   }
 
 }
@@ -0,0 +1,347 @@
+
+package app.entity.persistence;
+
+import java.util.concurrent.Semaphore;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import app.entity.persistence.exceptions.PersistenceException;
+
+/**
+ * Unidad de trabajo: ejecuta una operación de servicio completa en una única sesión y transacción. Mientras la operación está
+ * en curso, la sesión queda asociada al hilo y los sistemas de persistencia la reutilizan en lugar de abrir una propia, de
+ * forma que las entidades que devuelven siguen gestionadas y sus cambios se envían a la DB al confirmar la transacción.<br>
+ * Fuera de una unidad de trabajo, cada método de persistencia se ejecuta en su propia sesión y transacción, y las lecturas
+ * pueden enviarse a la réplica de lectura (ver {@link ReadRouting}). Dentro de ella, todo se ejecuta en la DB principal
+ */
+public final class UnitOfWork {
+
+  /** Sesión de la unidad de trabajo en curso en cada hilo */
+  private static final ThreadLocal<Session> CURRENT_SESSION = new ThreadLocal<>();
+
+  /** Constructor privado para evitar instanciación de clase */
+  private UnitOfWork() {
+  }
+
+  /**
+   * Operación ejecutada dentro de una unidad de trabajo
+   * @param <T> Tipo del resultado
+   */
+  @FunctionalInterface
+  public interface Work<T> {
+
+    /**
+     * Ejecuta la operación
+     * @return T
+     * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+     */
+    T execute() throws PersistenceException;
+  }
+
+  /**
+   * Acceso a datos de un sistema de persistencia sobre una sesión
+   * @param <T> Tipo del resultado
+   */
+  @FunctionalInterface
+  interface SessionWork<T> {
+
+    /**
+     * Ejecuta el acceso a datos
+     * @param session Sesión
+     * @return T
+     * @throws Exception En caso de que ocurra cualquier error durante el acceso a los datos
+     */
+    T execute(Session session) throws Exception;
+  }
+
+  /**
+   * Ejecuta una operación de escritura en una única sesión y transacción, que se confirma al terminar o se deshace si se
+   * lanza cualquier excepción. Ocupa uno de los permisos de escritura mientras dura (ver
+   * {@link SessionFactoryProvider#getWritePermits()}). Si el hilo ya está dentro de una unidad de trabajo de escritura, la
+   * operación se une a ella sin ocupar otro permiso
+   * @param <T>  Tipo del resultado
+   * @param work Operación
+   * @return T - Resultado de la operación
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos o al confirmar la
+   *                                  transacción
+   * @throws IllegalArgumentException Si la operación la lanza. Se propaga sin modificar tras deshacer la transacción
+   * @throws IllegalStateException    Si el hilo está dentro de una unidad de trabajo de sólo lectura
+   */
+  public static <T> T execute(Work<T> work) throws PersistenceException {
+    return execute(work, false);
+  }
+
+  /**
+   * Ejecuta una operación de sólo lectura en una única sesión y transacción, igual que {@link #execute(Work)} pero sin ocupar
+   * ningún permiso de escritura. Las entidades obtenidas se cargan en modo de sólo lectura, por lo que sus cambios no se
+   * envían a la DB. Si el hilo ya está dentro de una unidad de trabajo, la operación se une a ella
+   * @param <T>  Tipo del resultado
+   * @param work Operación. No debe escribir: las escrituras que intente lanzan IllegalStateException
+   * @return T - Resultado de la operación
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos
+   * @throws IllegalArgumentException Si la operación la lanza. Se propaga sin modificar
+   */
+  public static <T> T executeRead(Work<T> work) throws PersistenceException {
+    return execute(work, true);
+  }
+
+  /**
+   * Ejecuta una operación en una única sesión y transacción
+   * @param <T>      Tipo del resultado
+   * @param work     Operación
+   * @param readOnly Indica si la operación es de sólo lectura, en cuyo caso no ocupa ningún permiso de escritura
+   * @return T - Resultado de la operación
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos o al confirmar la transacción
+   */
+  private static <T> T execute(Work<T> work, boolean readOnly) throws PersistenceException {
+
+    Session current = CURRENT_SESSION.get();
+
+    if (current != null) {
+      if (!readOnly) {
+        requireWritable(current);
+      }
+      return work.execute();
+    }
+
+    Semaphore permits = readOnly ? null : acquireWritePermit();
+    Session session = SessionFactoryProvider.getSessionFactory().openSession();
+    session.setDefaultReadOnly(readOnly);
+    Transaction transaction = null;
+    CURRENT_SESSION.set(session);
+
+    try {
+      transaction = session.beginTransaction();
+
+      T result = work.execute();
+
+      transaction.commit();
+      if (!readOnly) {
+        ReadRouting.recordWrite();
+      }
+      return result;
+
+    } catch (PersistenceException | IllegalArgumentException | IllegalStateException e) {
+
+      rollback(transaction);
+      throw e;
+
+    } catch (Exception e) {
+
+      rollback(transaction);
+      throw new PersistenceException(e.getMessage(), e);
+
+    } finally {
+      CURRENT_SESSION.remove();
+      session.close();
+      releaseWritePermit(permits);
+    }
+  }
+
+  /**
+   * Comprueba si el hilo actual está dentro de una unidad de trabajo
+   * @return boolean
+   */
+  public static boolean isActive() {
+    return CURRENT_SESSION.get() != null;
+  }
+
+  /**
+   * Ejecuta un acceso a datos de escritura. Dentro de una unidad de trabajo de la misma factoría se usa su sesión, y la
+   * transacción la confirma la unidad de trabajo. Fuera de ella, se abre una sesión y una transacción propias, que ocupan
+   * un permiso de escritura
+   * @param <T>     Tipo del resultado
+   * @param factory Factoría de sesiones del sistema de persistencia
+   * @param work    Acceso a datos
+   * @return T
+   * @throws PersistenceException  En caso de que ocurra un error durante el acceso a los datos
+   * @throws IllegalStateException Si el hilo está dentro de una unidad de trabajo de sólo lectura
+   */
+  static <T> T inTransaction(SessionFactory factory, SessionWork<T> work) throws PersistenceException {
+
+    Session current = currentSession(factory);
+
+    if (current != null) {
+      requireWritable(current);
+      return executeIn(current, work);
+    }
+
+    // Se abre sesión y la transacción
+    Semaphore permits = acquireWritePermit();
+    Session session = factory.openSession();
+    Transaction transaction = null;
+
+    try {
+      transaction = session.beginTransaction();
+
+      T result = work.execute(session);
+
+      transaction.commit();
+      ReadRouting.recordWrite();
+      return result;
+
+    } catch (Exception e) {
+
+      rollback(transaction);
+      throw new PersistenceException(e.getMessage(), e);
+
+    } finally {
+      session.close();
+      releaseWritePermit(permits);
+    }
+  }
+
+  /**
+   * Ejecuta un acceso a datos de lectura. Dentro de una unidad de trabajo de la misma factoría se usa su sesión, por lo que
+   * las entidades obtenidas siguen gestionadas. Fuera de ella, se abre una sesión propia
+   * @param <T>     Tipo del resultado
+   * @param factory Factoría de sesiones del sistema de persistencia
+   * @param work    Acceso a datos
+   * @return T
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  static <T> T inSession(SessionFactory factory, SessionWork<T> work) throws PersistenceException {
+
+    Session current = currentSession(factory);
+
+    if (current != null) {
+      return executeIn(current, work);
+    }
+
+    try (Session session = factory.openSession()) {
+      return work.execute(session);
+
+    } catch (Exception e) {
+      throw new PersistenceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Ejecuta un acceso a datos de sólo lectura que puede enviarse a la réplica de lectura. Dentro de una unidad de trabajo de
+   * la misma factoría se usa su sesión, igual que en {@link #inSession(SessionFactory, SessionWork)}. Fuera de ella, se abre
+   * una sesión propia sobre la factoría que indique {@link ReadRouting}; si es la de la réplica, la sesión es de sólo
+   * lectura
+   * @param <T>     Tipo del resultado
+   * @param factory Factoría de sesiones del sistema de persistencia (DB principal)
+   * @param work    Acceso a datos
+   * @return T
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  static <T> T inReadSession(SessionFactory factory, SessionWork<T> work) throws PersistenceException {
+
+    Session current = currentSession(factory);
+
+    if (current != null) {
+      return executeIn(current, work);
+    }
+
+    SessionFactory target = ReadRouting.forRead(factory);
+
+    try (Session session = target.openSession()) {
+
+      // Las entidades leídas de la réplica no se modifican, por lo que no se guardan instantáneas para comprobar cambios
+      if (target != factory) {
+        session.setDefaultReadOnly(true);
+      }
+      return work.execute(session);
+
+    } catch (Exception e) {
+      throw new PersistenceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Obtiene un permiso para abrir una transacción de escritura propia, esperando si es necesario. Ver
+   * {@link SessionFactoryProvider#getWritePermits()}
+   * @return Semaphore - Permisos de los que se ha obtenido el permiso, que deben pasarse a
+   *         {@link #releaseWritePermit(Semaphore)}. Será null si no se limitan las transacciones de escritura
+   * @throws PersistenceException En caso de que el hilo se interrumpa durante la espera
+   */
+  static Semaphore acquireWritePermit() throws PersistenceException {
+
+    Semaphore permits = SessionFactoryProvider.getWritePermits();
+
+    if (permits != null) {
+      try {
+        permits.acquire();
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PersistenceException("Interrumpido a la espera de una transacción de escritura", e);
+      }
+    }
+
+    return permits;
+  }
+
+  /**
+   * Devuelve un permiso de transacción de escritura
+   * @param permits Permisos de los que se obtuvo el permiso. Puede ser null
+   */
+  static void releaseWritePermit(Semaphore permits) {
+
+    if (permits != null) {
+      permits.release();
+    }
+  }
+
+  /**
+   * Obtiene la sesión de la unidad de trabajo en curso, si pertenece a la factoría indicada
+   * @param factory Factoría de sesiones
+   * @return Session - Será null si el hilo no está dentro de una unidad de trabajo de esa factoría
+   */
+  private static Session currentSession(SessionFactory factory) {
+
+    Session current = CURRENT_SESSION.get();
+    return current != null && current.getSessionFactory() == factory ? current : null;
+  }
+
+  /**
+   * Comprueba que la sesión de la unidad de trabajo en curso admite escrituras
+   * @param session Sesión de la unidad de trabajo
+   * @throws IllegalStateException Si la unidad de trabajo es de sólo lectura. Sin un permiso de escritura, la escritura
+   *                               podría agotar las conexiones del pool
+   */
+  private static void requireWritable(Session session) {
+
+    if (session.isDefaultReadOnly()) {
+      throw new IllegalStateException("No se puede escribir dentro de una unidad de trabajo de sólo lectura");
+    }
+  }
+
+  /**
+   * Ejecuta un acceso a datos sobre la sesión de la unidad de trabajo en curso
+   * @param <T>     Tipo del resultado
+   * @param session Sesión de la unidad de trabajo
+   * @param work    Acceso a datos
+   * @return T
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos. La unidad de trabajo deshará
+   *                              la transacción
+   */
+  private static <T> T executeIn(Session session, SessionWork<T> work) throws PersistenceException {
+
+    try {
+      return work.execute(session);
+
+    } catch (PersistenceException e) {
+      throw e;
+
+    } catch (Exception e) {
+      throw new PersistenceException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Deshace la transacción si sigue activa
+   * @param transaction Transacción. Puede ser null
+   */
+  private static void rollback(Transaction transaction) {
+
+    if (transaction != null && transaction.isActive()) {
+      transaction.rollback();
+    }
+  }
+
+}
@@ -0,0 +1,29 @@
+
+package app.entity.persistence.cache;
+
+/**
+ * Estadísticas de una región de la caché de segundo nivel
+ * @param region           Nombre de la región
+ * @param hits             Accesos resueltos desde la caché
+ * @param misses           Accesos que no encontraron el dato en la caché
+ * @param puts             Datos almacenados en la caché
+ * @param elementsInMemory Elementos actualmente en memoria, o -1 si el proveedor no lo soporta
+ */
+public record CacheRegionStats(String region, long hits, long misses, long puts, long elementsInMemory) {
+
+  /**
+   * Obtiene la proporción de accesos resueltos desde la caché
+   * @return double - Entre 0 y 1. Será 0 si no ha habido accesos
+   */
+  public double hitRatio() {
+    long accesses = hits + misses;
+    return accesses == 0 ? 0 : (double) hits / accesses;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Region: %s, Hits: %d, Misses: %d, Puts: %d, In Memory: %d, Hit Ratio: %.2f", region, hits,
+        misses, puts, elementsInMemory, hitRatio());
+  }
+
+}
@@ -15,4 +15,13 @@ public class PersistenceException extends Exception {
     super(message);
   }
 
+  /**
+   * Constructor con mensaje y causa
+   * @param message Mensaje de error
+   * @param cause   Excepción que originó el error
+   */
+  public PersistenceException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
 }
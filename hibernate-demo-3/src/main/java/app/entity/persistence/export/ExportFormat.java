@@ -0,0 +1,188 @@
+
+package app.entity.persistence.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/** Formatos de exportación de estudiantes. Ambos escriben una fila por línea, en UTF-8 */
+public enum ExportFormat {
+
+  /**
+   * CSV (RFC 4180) con cabecera. Los números de teléfono se agrupan en una única columna separados por
+   * {@value #PHONE_SEPARATOR}
+   */
+  CSV {
+
+    @Override
+    void writeHeader(Writer writer) throws IOException {
+      writer.write("id,dni,name,birthdate,street_address,city,postal_code,course_name,school,starting_year,phone_numbers\n");
+    }
+
+    @Override
+    void writeRow(Writer writer, StudentExportRow row) throws IOException {
+
+      writer.write(String.valueOf(row.id()));
+      writeCsvField(writer, row.dni());
+      writeCsvField(writer, row.name());
+      writeCsvField(writer, row.birthdate() == null ? null : row.birthdate().toString());
+      writeCsvField(writer, row.streetAddress());
+      writeCsvField(writer, row.city());
+      writeCsvField(writer, row.postalCode());
+      writeCsvField(writer, row.courseName());
+      writeCsvField(writer, row.school());
+      writeCsvField(writer, row.startingYear() == null ? null : row.startingYear().toString());
+      writeCsvField(writer, String.join(PHONE_SEPARATOR, row.phoneNumbers()));
+      writer.write('\n');
+    }
+  },
+
+  /** JSON delimitado por saltos de línea: un objeto JSON por estudiante, sin cabecera */
+  NDJSON {
+
+    @Override
+    void writeHeader(Writer writer) {
+      // NDJSON no tiene cabecera
+    }
+
+    @Override
+    void writeRow(Writer writer, StudentExportRow row) throws IOException {
+
+      writer.write("{\"id\":");
+      writer.write(String.valueOf(row.id()));
+      writer.write(",\"dni\":");
+      writeJsonString(writer, row.dni());
+      writer.write(",\"name\":");
+      writeJsonString(writer, row.name());
+      writer.write(",\"birthdate\":");
+      writeJsonString(writer, row.birthdate() == null ? null : row.birthdate().toString());
+
+      writer.write(",\"address\":");
+      if (row.city() == null) {
+        writer.write("null");
+
+      } else {
+        writer.write("{\"streetAddress\":");
+        writeJsonString(writer, row.streetAddress());
+        writer.write(",\"city\":");
+        writeJsonString(writer, row.city());
+        writer.write(",\"postalCode\":");
+        writeJsonString(writer, row.postalCode());
+        writer.write('}');
+      }
+
+      writer.write(",\"course\":");
+      if (row.courseName() == null) {
+        writer.write("null");
+
+      } else {
+        writer.write("{\"name\":");
+        writeJsonString(writer, row.courseName());
+        writer.write(",\"school\":");
+        writeJsonString(writer, row.school());
+        writer.write(",\"startingYear\":");
+        writer.write(String.valueOf(row.startingYear()));
+        writer.write('}');
+      }
+
+      writer.write(",\"phoneNumbers\":[");
+      for (int i = 0; i < row.phoneNumbers().size(); i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        writeJsonString(writer, row.phoneNumbers().get(i));
+      }
+      writer.write("]}\n");
+    }
+  };
+
+  /** Separador de los números de teléfono en la columna phone_numbers del CSV */
+  private static final String PHONE_SEPARATOR = ";";
+
+  /**
+   * Escribe la cabecera del fichero
+   * @param writer Destino
+   * @throws IOException En caso de error de escritura
+   */
+  abstract void writeHeader(Writer writer) throws IOException;
+
+  /**
+   * Escribe una fila, terminada en salto de línea
+   * @param writer Destino
+   * @param row    Fila
+   * @throws IOException En caso de error de escritura
+   */
+  abstract void writeRow(Writer writer, StudentExportRow row) throws IOException;
+
+  /**
+   * Escribe un campo CSV precedido de separador. Se entrecomilla sólo si contiene separadores, comillas o saltos de línea
+   * @param writer Destino
+   * @param value  Valor. Null se escribe como campo vacío
+   * @throws IOException En caso de error de escritura
+   */
+  private static void writeCsvField(Writer writer, String value) throws IOException {
+
+    writer.write(',');
+
+    if (value == null) {
+      return;
+    }
+
+    boolean quoted = false;
+    for (int i = 0; i < value.length() && !quoted; i++) {
+      char c = value.charAt(i);
+      quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    if (quoted) {
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+
+    } else {
+      writer.write(value);
+    }
+  }
+
+  /**
+   * Escribe una cadena JSON entrecomillada y escapada
+   * @param writer Destino
+   * @param value  Valor. Null se escribe como null
+   * @throws IOException En caso de error de escritura
+   */
+  private static void writeJsonString(Writer writer, String value) throws IOException {
+
+    if (value == null) {
+      writer.write("null");
+      return;
+    }
+
+    writer.write('"');
+
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+
+      if (c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+
+      } else if (c == '\n') {
+        writer.write("\\n");
+
+      } else if (c == '\r') {
+        writer.write("\\r");
+
+      } else if (c == '\t') {
+        writer.write("\\t");
+
+      } else if (c < 0x20) {
+        writer.write(String.format("\\u%04x", (int) c));
+
+      } else {
+        writer.write(c);
+      }
+    }
+
+    writer.write('"');
+  }
+
+}
@@ -0,0 +1,29 @@
+
+package app.entity.persistence.export;
+
+import java.nio.file.Path;
+
+/**
+ * Resultado de una exportación
+ * @param target        Fichero generado
+ * @param rows          Número de filas exportadas
+ * @param bytes         Tamaño del fichero generado, en bytes
+ * @param elapsedMillis Tiempo empleado, en milisegundos
+ */
+public record ExportResult(Path target, long rows, long bytes, long elapsedMillis) {
+
+  /**
+   * Obtiene el rendimiento de la exportación
+   * @return double - Filas por segundo
+   */
+  public double rowsPerSecond() {
+    return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("File: %s, Rows: %d, Bytes: %d, Time: %d ms, Rows/s: %.0f", target, rows, bytes, elapsedMillis,
+        rowsPerSecond());
+  }
+
+}
@@ -0,0 +1,24 @@
+
+package app.entity.persistence.export;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Fila de la exportación de estudiantes: atributos propios del estudiante junto con los de su dirección, su curso y sus
+ * números de teléfono, ya desnormalizados
+ * @param id            ID
+ * @param dni           DNI
+ * @param name          Nombre completo
+ * @param birthdate     Fecha de nacimiento
+ * @param streetAddress Descripción de la dirección. Será null si el estudiante no tiene dirección
+ * @param city          Ciudad. Será null si el estudiante no tiene dirección
+ * @param postalCode    Código postal. Será null si el estudiante no tiene dirección
+ * @param courseName    Nombre del curso. Será null si el estudiante no tiene curso asignado
+ * @param school        Centro escolar del curso. Será null si el estudiante no tiene curso asignado
+ * @param startingYear  Año de comienzo del curso. Será null si el estudiante no tiene curso asignado
+ * @param phoneNumbers  Números de teléfono, ordenados. Vacía si no tiene ninguno
+ */
+record StudentExportRow(Integer id, String dni, String name, LocalDate birthdate, String streetAddress, String city,
+    String postalCode, String courseName, String school, Integer startingYear, List<String> phoneNumbers) {
+}
@@ -0,0 +1,182 @@
+
+package app.entity.persistence.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import app.entity.persistence.ReadRouting;
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.exceptions.PersistenceException;
+
+/**
+ * Exportación completa de los estudiantes, junto con su dirección, curso y números de teléfono, a un fichero CSV o NDJSON.
+ * <br>
+ * Se usa una sesión sin estado (sin caché de primer ni de segundo nivel) y dos cursores de la DB ordenados por ID de
+ * estudiante: uno con los estudiantes, su dirección y su curso, y otro con sus números de teléfono, que se combinan a medida
+ * que se recorren. Cada fila se escribe directamente en el fichero, por lo que el consumo de memoria no depende del número
+ * de estudiantes
+ */
+public class StudentExporter {
+
+  /** Número de filas que el driver JDBC obtiene en cada viaje a la DB */
+  private static final int FETCH_SIZE = 500;
+
+  /** Tamaño de los buffers de escritura, en bytes */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(StudentExporter.class);
+
+  /** Factoría de sesiones */
+  private SessionFactory factory;
+
+  /**
+   * Constructor de la clase. Obtiene la factoría de sesiones compartida
+   * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
+   */
+  public StudentExporter() {
+    factory = SessionFactoryProvider.getSessionFactory();
+  }
+
+  /**
+   * Exporta todos los estudiantes, ordenados por ID, al fichero indicado. Si el fichero existe, se sobrescribe. La lectura
+   * puede ejecutarse sobre la réplica de lectura
+   * @param target Fichero de destino
+   * @param format Formato de exportación
+   * @param gzip   Indica si el fichero se comprime con gzip
+   * @return ExportResult - Número de filas, tamaño del fichero y rendimiento de la exportación
+   * @throws PersistenceException En caso de que exista un error durante la lectura de los estudiantes o la escritura del
+   *                              fichero
+   */
+  public ExportResult exportAll(Path target, ExportFormat format, boolean gzip) throws PersistenceException {
+
+    long start = System.nanoTime();
+    long rows = 0;
+
+    StatelessSession session = ReadRouting.forRead(factory).openStatelessSession();
+    Transaction transaction = null;
+
+    try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING); Writer writer = openWriter(channel, gzip)) {
+
+      // Ambos cursores se leen en la misma transacción, para que vean la misma versión de los datos
+      transaction = session.beginTransaction();
+
+      try (ScrollableResults<Object[]> students = session.createQuery(
+          "SELECT s.id, s.dni, s.name, s.birthdate, a.streetAddress, a.city, a.postalCode, c.name, c.school, "
+              + "c.startingYear FROM Student s LEFT JOIN s.address a LEFT JOIN s.course c ORDER BY s.id",
+          Object[].class).setFetchSize(FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+
+          ScrollableResults<Object[]> phoneNumbers = session
+              .createQuery("SELECT s.id, p.number FROM Student s JOIN s.phoneNumbers p ORDER BY s.id, p.number",
+                  Object[].class)
+              .setFetchSize(FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY)) {
+
+        format.writeHeader(writer);
+        boolean pendingPhoneNumber = phoneNumbers.next();
+
+        while (students.next()) {
+
+          Object[] student = students.get();
+          int studentId = (Integer) student[0];
+
+          // Se avanza el cursor de números de teléfono hasta el siguiente estudiante
+          List<String> numbers = new ArrayList<>();
+
+          while (pendingPhoneNumber) {
+
+            Object[] phoneNumber = phoneNumbers.get();
+            int ownerId = (Integer) phoneNumber[0];
+
+            if (ownerId > studentId) {
+              break;
+            }
+
+            if (ownerId == studentId) {
+              numbers.add((String) phoneNumber[1]);
+            }
+            pendingPhoneNumber = phoneNumbers.next();
+          }
+
+          format.writeRow(writer,
+              new StudentExportRow(studentId, (String) student[1], (String) student[2], (LocalDate) student[3],
+                  (String) student[4], (String) student[5], (String) student[6], (String) student[7],
+                  (String) student[8], (Integer) student[9], numbers));
+          rows++;
+        }
+      }
+
+      transaction.commit();
+
+    } catch (Exception e) {
+
+      if (transaction != null && transaction.isActive()) {
+        transaction.rollback();
+      }
+      throw new PersistenceException(e.getMessage(), e);
+
+    } finally {
+      session.close();
+    }
+
+    ExportResult result = new ExportResult(target, rows, fileSize(target), (System.nanoTime() - start) / 1_000_000);
+    LOGGER.info("Exportación {} completada. {}", format, result);
+
+    return result;
+  }
+
+  /**
+   * Abre el flujo de escritura en UTF-8 sobre el canal del fichero, comprimido con gzip si se indica
+   * @param channel Canal del fichero
+   * @param gzip    Indica si se comprime con gzip
+   * @return Writer
+   * @throws IOException En caso de error al iniciar la compresión
+   */
+  private static Writer openWriter(FileChannel channel, boolean gzip) throws IOException {
+
+    OutputStream out = Channels.newOutputStream(channel);
+
+    if (gzip) {
+      out = new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+
+    return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  /**
+   * Obtiene el tamaño de un fichero
+   * @param file Fichero
+   * @return long - Bytes, o -1 si no se puede obtener
+   */
+  private static long fileSize(Path file) {
+
+    try {
+      return Files.size(file);
+
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+}
@@ -0,0 +1,81 @@
+
+package app.entity.persistence.migration;
+
+import java.util.Properties;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aplica las migraciones versionadas del esquema (classpath:{@value #DEFAULT_LOCATION}) con Flyway, antes de construir la
+ * factoría de sesiones. Hibernate sólo valida el esquema resultante (hibernate.hbm2ddl.auto=validate).<br>
+ * Las bases de datos ya existentes, creadas con hibernate.hbm2ddl.auto=update, se marcan con la versión
+ * {@value #BASELINE_VERSION} (esquema inicial) y sólo se les aplican las migraciones posteriores. Entre ellas, V5 crea la
+ * tabla de generación de identificadores que el esquema inicial no tenía y la sitúa por encima de los IDs existentes
+ */
+public final class SchemaMigration {
+
+  /** Indica si se aplican las migraciones al arrancar. Por defecto, true */
+  public static final String ENABLED = "app.migration.enabled";
+
+  /** Ubicaciones de los scripts de migración, separadas por comas. Por defecto, {@value #DEFAULT_LOCATION} */
+  public static final String LOCATIONS = "app.migration.locations";
+
+  /** Ubicación por defecto de los scripts de migración */
+  private static final String DEFAULT_LOCATION = "classpath:db/migration";
+
+  /** Versión asignada a una base de datos existente sin historial de migraciones */
+  private static final String BASELINE_VERSION = "1";
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigration.class);
+
+  /** Constructor privado para evitar instanciación de clase */
+  private SchemaMigration() {
+  }
+
+  /**
+   * Aplica las migraciones pendientes sobre la base de datos indicada en las propiedades de conexión de Hibernate
+   * @param properties Propiedades de configuración de Hibernate
+   * @throws org.flywaydb.core.api.FlywayException En caso de que alguna migración falle
+   */
+  public static void migrate(Properties properties) {
+
+    if (!Boolean.parseBoolean(getSetting(properties, ENABLED, "true"))) {
+      LOGGER.info("Migraciones del esquema desactivadas");
+      return;
+    }
+
+    long start = System.nanoTime();
+
+    Flyway flyway = Flyway.configure()
+        .dataSource(getSetting(properties, AvailableSettings.URL, null), getSetting(properties, AvailableSettings.USER, null),
+            getSetting(properties, AvailableSettings.PASS, null))
+        .locations(getSetting(properties, LOCATIONS, DEFAULT_LOCATION).split("\\s*,\\s*"))
+        .baselineOnMigrate(true)
+        .baselineVersion(BASELINE_VERSION)
+        .load();
+
+    MigrateResult result = flyway.migrate();
+
+    LOGGER.info("Esquema en la versión {}. {} migraciones aplicadas en {} ms",
+        result.targetSchemaVersion != null ? result.targetSchemaVersion : result.initialSchemaVersion,
+        result.migrationsExecuted, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Obtiene el valor de una propiedad de configuración sin espacios en blanco alrededor
+   * @param properties   Propiedades de configuración
+   * @param name         Nombre de la propiedad
+   * @param defaultValue Valor por defecto
+   * @return String - Será defaultValue si la propiedad no existe
+   */
+  private static String getSetting(Properties properties, String name, String defaultValue) {
+    Object value = properties.get(name);
+    return value == null ? defaultValue : value.toString().trim();
+  }
+
+}
@@ -0,0 +1,101 @@
+
+package app.entity.persistence.pool;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Métricas del pool de conexiones. Recibe de HikariCP los tiempos de espera y los timeouts de cada obtención de conexión, y
+ * consulta el estado del pool (conexiones activas, inactivas, hilos en espera) en el momento de generar una instantánea
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, IMetricsTracker {
+
+  /** Número de conexiones obtenidas del pool */
+  private final LongAdder acquisitions = new LongAdder();
+
+  /** Tiempo total de espera para obtener conexiones, en nanosegundos */
+  private final LongAdder totalWaitNanos = new LongAdder();
+
+  /** Máximo tiempo de espera observado para obtener una conexión, en nanosegundos */
+  private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+  /** Número de peticiones que agotaron el tiempo de espera sin obtener conexión */
+  private final LongAdder timeouts = new LongAdder();
+
+  /** Número de conexiones físicas creadas por el pool */
+  private final LongAdder connectionsCreated = new LongAdder();
+
+  /** Tamaño máximo del pool */
+  private final int maximumPoolSize;
+
+  /** Bean de gestión del pool, del que se obtiene su estado actual */
+  private volatile HikariPoolMXBean poolBean;
+
+  /**
+   * Constructor
+   * @param maximumPoolSize Tamaño máximo del pool
+   */
+  public ConnectionPoolMetrics(int maximumPoolSize) {
+    this.maximumPoolSize = maximumPoolSize;
+  }
+
+  /**
+   * Asocia el bean de gestión del pool, una vez arrancado
+   * @param poolBean Bean de gestión del pool
+   */
+  void bind(HikariPoolMXBean poolBean) {
+    this.poolBean = poolBean;
+  }
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    return this;
+  }
+
+  @Override
+  public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+    connectionsCreated.increment();
+  }
+
+  @Override
+  public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+    acquisitions.increment();
+    totalWaitNanos.add(elapsedAcquiredNanos);
+    maxWaitNanos.accumulate(elapsedAcquiredNanos);
+  }
+
+  @Override
+  public void recordConnectionTimeout() {
+    timeouts.increment();
+  }
+
+  /**
+   * Obtiene el tamaño máximo del pool
+   * @return int
+   */
+  public int getMaximumPoolSize() {
+    return maximumPoolSize;
+  }
+
+  /**
+   * Genera una instantánea del estado del pool y de las métricas acumuladas
+   * @return ConnectionPoolStats
+   */
+  public ConnectionPoolStats snapshot() {
+
+    HikariPoolMXBean bean = poolBean;
+    long count = acquisitions.sum();
+    double averageWaitMillis = count == 0 ? 0 : totalWaitNanos.sum() / (count * 1_000_000.0);
+
+    return new ConnectionPoolStats(bean == null ? 0 : bean.getActiveConnections(),
+        bean == null ? 0 : bean.getIdleConnections(), bean == null ? 0 : bean.getTotalConnections(),
+        bean == null ? 0 : bean.getThreadsAwaitingConnection(), maximumPoolSize, connectionsCreated.sum(), count,
+        averageWaitMillis, maxWaitNanos.get() / 1_000_000.0, timeouts.sum());
+  }
+
+}
@@ -0,0 +1,29 @@
+
+package app.entity.persistence.pool;
+
+/**
+ * Instantánea del estado del pool de conexiones
+ * @param activeConnections   Conexiones en uso
+ * @param idleConnections     Conexiones inactivas disponibles
+ * @param totalConnections    Conexiones totales abiertas
+ * @param threadsAwaiting     Hilos esperando a obtener una conexión
+ * @param maximumPoolSize     Tamaño máximo del pool
+ * @param connectionsCreated  Conexiones físicas creadas desde el arranque
+ * @param acquisitions        Conexiones obtenidas del pool desde el arranque
+ * @param averageWaitMillis   Tiempo medio de espera para obtener una conexión, en milisegundos
+ * @param maxWaitMillis       Tiempo máximo de espera para obtener una conexión, en milisegundos
+ * @param timeouts            Peticiones que agotaron el tiempo de espera sin obtener conexión
+ */
+public record ConnectionPoolStats(int activeConnections, int idleConnections, int totalConnections, int threadsAwaiting,
+    int maximumPoolSize, long connectionsCreated, long acquisitions, double averageWaitMillis, double maxWaitMillis,
+    long timeouts) {
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Active: %d, Idle: %d, Total: %d, Awaiting: %d, Max Size: %d, Created: %d, Acquisitions: %d, Avg Wait: %.3f ms, Max Wait: %.3f ms, Timeouts: %d",
+        activeConnections, idleConnections, totalConnections, threadsAwaiting, maximumPoolSize, connectionsCreated,
+        acquisitions, averageWaitMillis, maxWaitMillis, timeouts);
+  }
+
+}
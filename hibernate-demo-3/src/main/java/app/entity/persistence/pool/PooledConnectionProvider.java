@@ -0,0 +1,209 @@
+
+package app.entity.persistence.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import app.entity.persistence.sql.SqlObserver;
+
+/**
+ * Proveedor de conexiones de Hibernate respaldado por un pool HikariCP. Se configura desde hibernate.cfg.xml: las propiedades
+ * de conexión estándar (url, usuario, contraseña y driver) y todas las propiedades con prefijo {@value #HIKARI_PREFIX}, que se
+ * trasladan directamente a HikariCP. Al arrancar, precalienta el pool abriendo {@value #WARMUP} conexiones.<br>
+ * Salvo que se desactive con {@value SqlObserver#ENABLED}, las conexiones se entregan envueltas por un {@link SqlObserver}
+ * que mide cada sentencia SQL
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+  /** SerialVersionUID */
+  private static final long serialVersionUID = 1L;
+
+  /** Prefijo de las propiedades que se trasladan a HikariCP */
+  public static final String HIKARI_PREFIX = "hibernate.hikari.";
+
+  /** Número de conexiones a abrir durante el precalentamiento. Por defecto, el mínimo de conexiones inactivas del pool */
+  public static final String WARMUP = "app.pool.warmup";
+
+  /** Nombre del pool si no se indica en {@value #HIKARI_PREFIX}poolName */
+  private static final String POOL_NAME = "hibernate-demo-pool";
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PooledConnectionProvider.class);
+
+  /** Pool de conexiones */
+  private transient HikariDataSource dataSource;
+
+  /** Métricas del pool */
+  private transient ConnectionPoolMetrics metrics;
+
+  /** Observador de las sentencias SQL. Será null si está desactivado */
+  private transient SqlObserver sqlObserver;
+
+  @Override
+  public void configure(Map<String, Object> configurationValues) {
+
+    Properties hikariProperties = new Properties();
+
+    for (Map.Entry<String, Object> entry : configurationValues.entrySet()) {
+      if (entry.getKey().startsWith(HIKARI_PREFIX) && entry.getValue() != null) {
+        hikariProperties.put(entry.getKey().substring(HIKARI_PREFIX.length()), entry.getValue().toString().trim());
+      }
+    }
+
+    HikariConfig config = new HikariConfig(hikariProperties);
+    if (!hikariProperties.containsKey("poolName")) {
+      config.setPoolName(POOL_NAME);
+    }
+    config.setJdbcUrl(getSetting(configurationValues, AvailableSettings.URL));
+    config.setUsername(getSetting(configurationValues, AvailableSettings.USER));
+    config.setPassword(getSetting(configurationValues, AvailableSettings.PASS));
+
+    String driverClass = getSetting(configurationValues, AvailableSettings.DRIVER);
+    if (driverClass != null) {
+      config.setDriverClassName(driverClass);
+    }
+
+    metrics = new ConnectionPoolMetrics(config.getMaximumPoolSize());
+    config.setMetricsTrackerFactory(metrics);
+
+    dataSource = new HikariDataSource(config);
+    metrics.bind(dataSource.getHikariPoolMXBean());
+
+    String observerEnabled = getSetting(configurationValues, SqlObserver.ENABLED);
+
+    if (observerEnabled == null || Boolean.parseBoolean(observerEnabled)) {
+
+      String slowThreshold = getSetting(configurationValues, SqlObserver.SLOW_THRESHOLD_MILLIS);
+      String sampleRate = getSetting(configurationValues, SqlObserver.SAMPLE_RATE);
+
+      sqlObserver = new SqlObserver(
+          slowThreshold == null ? SqlObserver.DEFAULT_SLOW_THRESHOLD_MILLIS : Long.parseLong(slowThreshold),
+          sampleRate == null ? SqlObserver.DEFAULT_SAMPLE_RATE : Double.parseDouble(sampleRate));
+    }
+
+    String warmup = getSetting(configurationValues, WARMUP);
+    warmUp(warmup == null ? config.getMinimumIdle() : Integer.parseInt(warmup));
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+
+    Connection connection = dataSource.getConnection();
+    return sqlObserver == null ? connection : sqlObserver.observe(connection);
+  }
+
+  @Override
+  public void closeConnection(Connection connection) throws SQLException {
+    connection.close();
+  }
+
+  @Override
+  public boolean supportsAggressiveRelease() {
+    return false;
+  }
+
+  @Override
+  public boolean isUnwrappableAs(Class<?> unwrapType) {
+    return unwrapType.isAssignableFrom(getClass()) || unwrapType.isAssignableFrom(HikariDataSource.class);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T unwrap(Class<T> unwrapType) {
+
+    if (unwrapType.isAssignableFrom(getClass())) {
+      return (T) this;
+
+    } else if (unwrapType.isAssignableFrom(HikariDataSource.class)) {
+      return (T) dataSource;
+
+    } else {
+      throw new UnknownUnwrapTypeException(unwrapType);
+    }
+  }
+
+  @Override
+  public void stop() {
+
+    if (dataSource != null) {
+      LOGGER.info("Cerrando pool de conexiones. Estado final: {}", metrics.snapshot());
+      dataSource.close();
+    }
+  }
+
+  /**
+   * Obtiene las métricas del pool de conexiones
+   * @return ConnectionPoolMetrics
+   */
+  public ConnectionPoolMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Obtiene el observador de las sentencias SQL
+   * @return SqlObserver - Será null si está desactivado
+   */
+  public SqlObserver getSqlObserver() {
+    return sqlObserver;
+  }
+
+  /**
+   * Precalienta el pool abriendo el número de conexiones indicado y devolviéndolas a continuación, de forma que las primeras
+   * peticiones no paguen el coste de establecer la conexión
+   * @param connections Número de conexiones a abrir
+   */
+  private void warmUp(int connections) {
+
+    long start = System.nanoTime();
+    List<Connection> opened = new ArrayList<>();
+    int target = Math.min(connections, metrics.getMaximumPoolSize());
+
+    try {
+      for (int i = 0; i < target; i++) {
+        opened.add(dataSource.getConnection());
+      }
+
+    } catch (SQLException e) {
+      LOGGER.warn("No se pudo completar el precalentamiento del pool: {}", e.getMessage());
+
+    } finally {
+      for (Connection connection : opened) {
+        try {
+          connection.close();
+
+        } catch (SQLException e) {
+          LOGGER.warn("Error al devolver una conexión al pool: {}", e.getMessage());
+        }
+      }
+    }
+
+    LOGGER.info("Pool precalentado con {} conexiones en {} ms", opened.size(), (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Obtiene el valor de una propiedad de configuración sin espacios en blanco alrededor
+   * @param configurationValues Propiedades de configuración
+   * @param name                Nombre de la propiedad
+   * @return String - Será null si la propiedad no existe
+   */
+  private static String getSetting(Map<String, Object> configurationValues, String name) {
+    Object value = configurationValues.get(name);
+    return value == null ? null : value.toString().trim();
+  }
+
+}
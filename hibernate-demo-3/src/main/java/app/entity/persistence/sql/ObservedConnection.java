@@ -0,0 +1,77 @@
+
+package app.entity.persistence.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Envoltorio de una conexión JDBC. Delega todas las llamadas en la conexión real, y envuelve las sentencias que crea para que
+ * {@link SqlObserver} mida sus ejecuciones
+ */
+final class ObservedConnection implements InvocationHandler {
+
+  /** Observador de las sentencias */
+  private final SqlObserver observer;
+
+  /** Conexión real */
+  private final Connection target;
+
+  /**
+   * Constructor
+   * @param observer Observador de las sentencias
+   * @param target   Conexión real
+   */
+  ObservedConnection(SqlObserver observer, Connection target) {
+    this.observer = observer;
+    this.target = target;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+    String name = method.getName();
+
+    if ("equals".equals(name) && method.getParameterCount() == 1) {
+      return proxy == args[0];
+
+    } else if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+      return System.identityHashCode(proxy);
+    }
+
+    Object result = delegate(target, method, args);
+
+    // prepareStatement, prepareCall y createStatement. La sentencia de las dos primeras es el primer argumento
+    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+
+      String sql = name.startsWith("prepare") ? (String) args[0] : null;
+
+      return Proxy.newProxyInstance(ObservedConnection.class.getClassLoader(), new Class<?>[] { method.getReturnType() },
+          new ObservedStatement(observer, statement, (Connection) proxy, sql));
+    }
+
+    return result;
+  }
+
+  /**
+   * Invoca un método sobre el objeto real, propagando la excepción original si la lanza
+   * @param target Objeto real
+   * @param method Método
+   * @param args   Argumentos
+   * @return Object - Resultado de la invocación
+   * @throws Throwable La excepción lanzada por el método
+   */
+  static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+
+    try {
+      return method.invoke(target, args);
+
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+
+package app.entity.persistence.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Envoltorio de una sentencia JDBC (Statement, PreparedStatement o CallableStatement). Mide cada ejecución y la registra en
+ * {@link SqlObserver}. El tiempo medido es el de la ejecución en la DB, sin incluir el recorrido del ResultSet
+ */
+final class ObservedStatement implements InvocationHandler {
+
+  /** Observador de las sentencias */
+  private final SqlObserver observer;
+
+  /** Sentencia real */
+  private final Statement target;
+
+  /** Conexión envuelta que creó la sentencia */
+  private final Connection connection;
+
+  /** Sentencia SQL preparada. Será null si la sentencia no es preparada */
+  private final String preparedSql;
+
+  /** Última sentencia SQL añadida al lote de una sentencia no preparada */
+  private String batchSql;
+
+  /** Filas añadidas al lote en curso */
+  private int batchSize;
+
+  /**
+   * Constructor
+   * @param observer    Observador de las sentencias
+   * @param target      Sentencia real
+   * @param connection  Conexión envuelta que creó la sentencia
+   * @param preparedSql Sentencia SQL preparada. Null si la sentencia no es preparada
+   */
+  ObservedStatement(SqlObserver observer, Statement target, Connection connection, String preparedSql) {
+    this.observer = observer;
+    this.target = target;
+    this.connection = connection;
+    this.preparedSql = preparedSql;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+    String name = method.getName();
+
+    if ("equals".equals(name) && method.getParameterCount() == 1) {
+      return proxy == args[0];
+
+    } else if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+      return System.identityHashCode(proxy);
+
+    } else if ("getConnection".equals(name)) {
+      return connection;
+
+    } else if ("addBatch".equals(name)) {
+      batchSize++;
+      if (args != null && args.length == 1) {
+        batchSql = (String) args[0];
+      }
+
+    } else if ("clearBatch".equals(name)) {
+      batchSize = 0;
+
+    } else if (name.startsWith("execute")) {
+      return execute(method, args, name.endsWith("Batch"));
+    }
+
+    return ObservedConnection.delegate(target, method, args);
+  }
+
+  /**
+   * Ejecuta la sentencia y registra la ejecución
+   * @param method Método de ejecución
+   * @param args   Argumentos
+   * @param batch  Indica si es una ejecución por lotes
+   * @return Object - Resultado de la ejecución
+   * @throws Throwable La excepción lanzada por la ejecución
+   */
+  private Object execute(Method method, Object[] args, boolean batch) throws Throwable {
+
+    String sql = preparedSql;
+
+    if (args != null && args.length > 0 && args[0] instanceof String statementSql) {
+      sql = statementSql;
+
+    } else if (batch && sql == null) {
+      sql = batchSql;
+    }
+
+    int rows = batch ? batchSize : 0;
+    long start = System.nanoTime();
+    boolean failed = true;
+
+    try {
+      Object result = ObservedConnection.delegate(target, method, args);
+      failed = false;
+      return result;
+
+    } finally {
+      observer.record(sql, System.nanoTime() - start, rows, failed);
+
+      if (batch) {
+        batchSize = 0;
+      }
+    }
+  }
+
+}
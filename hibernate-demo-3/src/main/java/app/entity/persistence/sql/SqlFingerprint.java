@@ -0,0 +1,119 @@
+
+package app.entity.persistence.sql;
+
+/**
+ * Normalización de sentencias SQL para agruparlas por forma: los literales de texto y numéricos se sustituyen por ?, las
+ * listas de parámetros (IN, VALUES) se reducen a un único ? y los espacios en blanco consecutivos se reducen a uno
+ */
+final class SqlFingerprint {
+
+  /** Constructor privado para evitar instanciación de clase */
+  private SqlFingerprint() {
+  }
+
+  /**
+   * Obtiene la huella de una sentencia SQL
+   * @param sql Sentencia SQL
+   * @return String
+   */
+  static String of(String sql) {
+
+    StringBuilder sb = new StringBuilder(sql.length());
+    int length = sql.length();
+    int i = 0;
+
+    while (i < length) {
+
+      char c = sql.charAt(i);
+
+      if (Character.isWhitespace(c)) {
+
+        // Espacios consecutivos
+        while (i < length && Character.isWhitespace(sql.charAt(i))) {
+          i++;
+        }
+        if (sb.length() > 0) {
+          sb.append(' ');
+        }
+
+      } else if (c == '\'') {
+
+        // Literal de texto. Las comillas dobladas ('') forman parte del literal
+        i++;
+        while (i < length) {
+          if (sql.charAt(i) == '\'') {
+            if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+              i += 2;
+              continue;
+            }
+            break;
+          }
+          i++;
+        }
+        i++;
+        appendPlaceholder(sb);
+
+      } else if (c >= '0' && c <= '9' && !isIdentifierPart(sb)) {
+
+        // Literal numérico. Los dígitos que forman parte de un identificador (alias como s1_0) se conservan
+        while (i < length && (sql.charAt(i) >= '0' && sql.charAt(i) <= '9' || sql.charAt(i) == '.')) {
+          i++;
+        }
+        appendPlaceholder(sb);
+
+      } else if (c == '?') {
+        i++;
+        appendPlaceholder(sb);
+
+      } else {
+        sb.append(c);
+        i++;
+      }
+    }
+
+    // Espacio final
+    int end = sb.length();
+    if (end > 0 && sb.charAt(end - 1) == ' ') {
+      sb.setLength(end - 1);
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Añade un parámetro a la huella. Si el anterior elemento de una lista también era un parámetro, se omite
+   * @param sb Huella en construcción
+   */
+  private static void appendPlaceholder(StringBuilder sb) {
+
+    int end = sb.length();
+
+    // Se descarta el espacio que sigue a la coma
+    if (end > 0 && sb.charAt(end - 1) == ' ') {
+      end--;
+    }
+
+    if (end > 1 && sb.charAt(end - 1) == ',' && sb.charAt(end - 2) == '?') {
+      sb.setLength(end - 1);
+      return;
+    }
+
+    sb.append('?');
+  }
+
+  /**
+   * Comprueba si el último carácter de la huella forma parte de un identificador
+   * @param sb Huella en construcción
+   * @return boolean
+   */
+  private static boolean isIdentifierPart(StringBuilder sb) {
+
+    if (sb.length() == 0) {
+      return false;
+    }
+
+    char last = sb.charAt(sb.length() - 1);
+    return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+  }
+
+}
@@ -0,0 +1,188 @@
+
+package app.entity.persistence.sql;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Observador de las sentencias SQL a nivel JDBC. Envuelve las conexiones del pool para medir cada ejecución, y agrupa las
+ * sentencias por su huella (la sentencia sin literales ni listas de parámetros).<br>
+ * Las sentencias que superan el umbral de sentencia lenta se registran siempre en el logger {@value #SLOW_LOGGER}, y una
+ * muestra del resto, según la tasa de muestreo, en el logger {@value #SAMPLE_LOGGER} a nivel DEBUG. Ambos loggers deben
+ * usar un appender asíncrono, para que el registro no añada latencia a las sentencias
+ */
+public final class SqlObserver {
+
+  /** Propiedad que indica si se observan las sentencias SQL. Por defecto, true */
+  public static final String ENABLED = "app.sql.observer.enabled";
+
+  /** Propiedad con el umbral de sentencia lenta, en milisegundos. Por defecto, {@value #DEFAULT_SLOW_THRESHOLD_MILLIS} */
+  public static final String SLOW_THRESHOLD_MILLIS = "app.sql.slowThresholdMillis";
+
+  /** Propiedad con la proporción de sentencias que se registran, entre 0 y 1. Por defecto, {@value #DEFAULT_SAMPLE_RATE} */
+  public static final String SAMPLE_RATE = "app.sql.sampleRate";
+
+  /** Umbral de sentencia lenta por defecto, en milisegundos */
+  public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 100;
+
+  /** Proporción de sentencias registradas por defecto */
+  public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+  /** Logger de las sentencias lentas */
+  public static final String SLOW_LOGGER = "app.sql.slow";
+
+  /** Logger de la muestra de sentencias */
+  public static final String SAMPLE_LOGGER = "app.sql.sample";
+
+  /** Número máximo de huellas distintas. Las sentencias que no caben se agrupan bajo {@value #OVERFLOW_FINGERPRINT} */
+  private static final int MAX_FINGERPRINTS = 1_000;
+
+  /** Huella de las sentencias que no caben en el registro */
+  private static final String OVERFLOW_FINGERPRINT = "<otras sentencias>";
+
+  /** Logger de las sentencias lentas */
+  private static final Logger SLOW = LoggerFactory.getLogger(SLOW_LOGGER);
+
+  /** Logger de la muestra de sentencias */
+  private static final Logger SAMPLE = LoggerFactory.getLogger(SAMPLE_LOGGER);
+
+  /** Umbral de sentencia lenta, en nanosegundos */
+  private final long slowThresholdNanos;
+
+  /** Proporción de sentencias registradas */
+  private final double sampleRate;
+
+  /** Acumuladores por huella */
+  private final ConcurrentMap<String, SqlStatementMetrics> byFingerprint = new ConcurrentHashMap<>();
+
+  /** Acumuladores por texto de la sentencia, para no calcular la huella de las sentencias ya vistas */
+  private final ConcurrentMap<String, SqlStatementMetrics> bySql = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor
+   * @param slowThresholdMillis Umbral de sentencia lenta, en milisegundos
+   * @param sampleRate          Proporción de sentencias registradas, entre 0 y 1
+   */
+  public SqlObserver(long slowThresholdMillis, double sampleRate) {
+    this.slowThresholdNanos = slowThresholdMillis * 1_000_000;
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * Envuelve una conexión para observar las sentencias que se ejecuten sobre ella
+   * @param connection Conexión
+   * @return Connection
+   */
+  public Connection observe(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(SqlObserver.class.getClassLoader(), new Class<?>[] { Connection.class },
+        new ObservedConnection(this, connection));
+  }
+
+  /**
+   * Obtiene el umbral de sentencia lenta
+   * @return long - Milisegundos
+   */
+  public long getSlowThresholdMillis() {
+    return slowThresholdNanos / 1_000_000;
+  }
+
+  /**
+   * Obtiene la proporción de sentencias registradas
+   * @return double - Entre 0 y 1
+   */
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Genera una instantánea de las estadísticas de cada huella
+   * @return List(SqlStatementStats) - Ordenada por tiempo total de ejecución, de mayor a menor
+   */
+  public List<SqlStatementStats> snapshot() {
+
+    List<SqlStatementStats> result = new ArrayList<>(byFingerprint.size());
+
+    for (SqlStatementMetrics metrics : byFingerprint.values()) {
+      result.add(metrics.snapshot());
+    }
+
+    result.sort(Comparator.comparingDouble(SqlStatementStats::totalMillis).reversed());
+    return result;
+  }
+
+  /** Descarta las estadísticas acumuladas */
+  public void reset() {
+
+    for (SqlStatementMetrics metrics : byFingerprint.values()) {
+      metrics.reset();
+    }
+  }
+
+  /**
+   * Registra una ejecución
+   * @param sql          Sentencia SQL. Puede ser null si el driver no la expone
+   * @param elapsedNanos Duración, en nanosegundos
+   * @param batchSize    Filas enviadas en el lote, o 0 si no es una ejecución por lotes
+   * @param failed       Indica si ha lanzado una excepción
+   */
+  void record(String sql, long elapsedNanos, int batchSize, boolean failed) {
+
+    String text = sql == null ? OVERFLOW_FINGERPRINT : sql;
+    boolean slow = elapsedNanos >= slowThresholdNanos;
+
+    metricsOf(text).record(elapsedNanos, batchSize, slow, failed);
+
+    if (slow) {
+      SLOW.warn("Sentencia lenta: {} ms{} - {}", elapsedNanos / 1_000_000, batchSuffix(batchSize), text);
+
+    } else if (sampleRate > 0 && SAMPLE.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+      SAMPLE.debug("{} ms{} - {}", String.format("%.3f", elapsedNanos / 1_000_000.0), batchSuffix(batchSize), text);
+    }
+  }
+
+  /**
+   * Obtiene el texto con el tamaño del lote para el registro de una ejecución
+   * @param batchSize Filas enviadas en el lote, o 0 si no es una ejecución por lotes
+   * @return String - Vacío si no es una ejecución por lotes
+   */
+  private static String batchSuffix(int batchSize) {
+    return batchSize > 0 ? " (lote de " + batchSize + ")" : "";
+  }
+
+  /**
+   * Obtiene los acumuladores de una sentencia, creándolos si es la primera vez que se ejecuta su huella
+   * @param sql Sentencia SQL
+   * @return SqlStatementMetrics
+   */
+  private SqlStatementMetrics metricsOf(String sql) {
+
+    SqlStatementMetrics metrics = bySql.get(sql);
+
+    if (metrics == null) {
+
+      String fingerprint = SqlFingerprint.of(sql);
+      if (byFingerprint.size() >= MAX_FINGERPRINTS && !byFingerprint.containsKey(fingerprint)) {
+        fingerprint = OVERFLOW_FINGERPRINT;
+      }
+
+      metrics = byFingerprint.computeIfAbsent(fingerprint, SqlStatementMetrics::new);
+
+      // Las sentencias con literales distintos comparten huella, pero no se memorizan sin límite
+      if (bySql.size() < MAX_FINGERPRINTS * 4) {
+        bySql.put(sql, metrics);
+      }
+    }
+
+    return metrics;
+  }
+
+}
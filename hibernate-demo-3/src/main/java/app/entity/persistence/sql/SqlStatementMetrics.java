@@ -0,0 +1,83 @@
+
+package app.entity.persistence.sql;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Acumuladores de las ejecuciones de las sentencias SQL con la misma huella. Se actualizan sin bloqueos desde cualquier hilo */
+final class SqlStatementMetrics {
+
+  /** Huella de la sentencia */
+  private final String fingerprint;
+
+  /** Ejecuciones */
+  private final LongAdder executions = new LongAdder();
+
+  /** Ejecuciones que lanzaron una excepción */
+  private final LongAdder errors = new LongAdder();
+
+  /** Ejecuciones que superaron el umbral de sentencia lenta */
+  private final LongAdder slowExecutions = new LongAdder();
+
+  /** Filas enviadas en lotes */
+  private final LongAdder batchedRows = new LongAdder();
+
+  /** Tiempo total de ejecución, en nanosegundos */
+  private final LongAdder totalNanos = new LongAdder();
+
+  /** Tiempo máximo de una ejecución, en nanosegundos */
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Constructor
+   * @param fingerprint Huella de la sentencia
+   */
+  SqlStatementMetrics(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Registra una ejecución
+   * @param elapsedNanos Duración, en nanosegundos
+   * @param batchSize    Filas enviadas en el lote, o 0 si no es una ejecución por lotes
+   * @param slow         Indica si ha superado el umbral de sentencia lenta
+   * @param failed       Indica si ha lanzado una excepción
+   */
+  void record(long elapsedNanos, int batchSize, boolean slow, boolean failed) {
+
+    executions.increment();
+    totalNanos.add(elapsedNanos);
+    maxNanos.accumulate(elapsedNanos);
+
+    if (batchSize > 0) {
+      batchedRows.add(batchSize);
+    }
+    if (slow) {
+      slowExecutions.increment();
+    }
+    if (failed) {
+      errors.increment();
+    }
+  }
+
+  /**
+   * Genera una instantánea de los acumuladores
+   * @return SqlStatementStats
+   */
+  SqlStatementStats snapshot() {
+    return new SqlStatementStats(fingerprint, executions.sum(), errors.sum(), slowExecutions.sum(), batchedRows.sum(),
+        totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0);
+  }
+
+  /** Descarta los acumuladores */
+  void reset() {
+
+    executions.reset();
+    errors.reset();
+    slowExecutions.reset();
+    batchedRows.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+  }
+
+}
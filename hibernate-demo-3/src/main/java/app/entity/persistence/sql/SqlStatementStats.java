@@ -0,0 +1,32 @@
+
+package app.entity.persistence.sql;
+
+/**
+ * Estadísticas acumuladas de las sentencias SQL con la misma huella
+ * @param fingerprint    Huella de la sentencia
+ * @param executions     Ejecuciones
+ * @param errors         Ejecuciones que lanzaron una excepción
+ * @param slowExecutions Ejecuciones que superaron el umbral de sentencia lenta
+ * @param batchedRows    Filas enviadas en lotes (executeBatch). 0 si la sentencia no se ejecuta por lotes
+ * @param totalMillis    Tiempo total de ejecución, en milisegundos
+ * @param maxMillis      Tiempo máximo de una ejecución, en milisegundos
+ */
+public record SqlStatementStats(String fingerprint, long executions, long errors, long slowExecutions, long batchedRows,
+    double totalMillis, double maxMillis) {
+
+  /**
+   * Obtiene el tiempo medio de ejecución
+   * @return double - Milisegundos. Será 0 si no ha habido ejecuciones
+   */
+  public double averageMillis() {
+    return executions == 0 ? 0 : totalMillis / executions;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Executions: %d, Errors: %d, Slow: %d, Batched Rows: %d, Total: %.3f ms, Avg: %.3f ms, Max: %.3f ms - %s",
+        executions, errors, slowExecutions, batchedRows, totalMillis, averageMillis(), maxMillis, fingerprint);
+  }
+
+}
@@ -0,0 +1,472 @@
+
+package app.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import app.dataset.DatasetGenerator;
+import app.entity.Address;
+import app.entity.Course;
+import app.entity.Student;
+import app.entity.persistence.AddressPersistence;
+import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.MetricsRegistry;
+import app.service.CourseService;
+import app.service.StudentService;
+
+/**
+ * Generador de carga sin interfaz gráfica sobre la DB configurada. Almacena una población inicial de estudiantes generada
+ * por {@link DatasetGenerator} y después ejecuta, desde varios hilos (de plataforma o virtuales), una mezcla configurable de
+ * operaciones de los servicios durante un tiempo fijo. Al terminar muestra el rendimiento y los percentiles de latencia de
+ * cada operación, medidos con HdrHistogram, y opcionalmente escribe los histogramas completos para comparar ejecuciones.
+ * <br>
+ * Cada hilo trabaja sobre sus propios estudiantes, por lo que una baja nunca afecta a las operaciones de otro hilo; los
+ * hilos sólo compiten por los números de teléfono y los cursos, que comparten. Si un hilo se queda sin estudiantes, las
+ * operaciones que los necesitan se sustituyen por altas.<br>
+ * Con una tasa objetivo, cada operación tiene asignado su instante de comienzo y la latencia se mide desde ese instante, no
+ * desde que el hilo queda libre: si el sistema no alcanza la tasa, el retraso acumulado aparece en la latencia en lugar de
+ * ocultarse (omisión coordinada). Sin tasa objetivo, cada hilo encadena las operaciones sin pausa.<br>
+ * Uso: {@code LoadDriver [clave=valor]...}. Ver {@link LoadSettings} para las claves admitidas. Debe ejecutarse sobre un
+ * esquema vacío
+ */
+public class LoadDriver {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+
+  /** Estudiantes de cada bloque de la población inicial */
+  private static final int CHUNK_SIZE = 1_000;
+
+  /** Proporción de estudiantes de la población inicial que comparten teléfono fijo con el anterior */
+  private static final double PHONE_SHARE_RATIO = 0.2;
+
+  /** Número de centros escolares */
+  private static final int SCHOOLS = 5;
+
+  /** Número de cursos de cada centro escolar */
+  private static final int COURSES_PER_SCHOOL = 4;
+
+  /** Año de comienzo de los cursos */
+  private static final int STARTING_YEAR = 2026;
+
+  /** Números de teléfono entre los que eligen las altas de teléfonos. Al ser pocos, muchos acaban compartidos */
+  private static final int PHONE_NUMBERS = 1_000;
+
+  /** Tamaño de las páginas del listado */
+  private static final int PAGE_SIZE = 20;
+
+  /** Dígitos significativos de los histogramas (precisión del 0,1%) */
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  /** Configuración de la ejecución */
+  private final LoadSettings settings;
+
+  /** Generador de los estudiantes, las direcciones y los números de teléfono */
+  private final DatasetGenerator generator;
+
+  /** Servicio de cursos */
+  private final CourseService courseService;
+
+  /** Servicio de estudiantes */
+  private final StudentService studentService;
+
+  /** Operaciones de la mezcla, en el orden de sus pesos acumulados */
+  private final LoadOperation[] operations;
+
+  /** Peso acumulado de cada operación de la mezcla */
+  private final int[] cumulativeWeights;
+
+  /** DNIs de los estudiantes de cada hilo. Cada lista la modifica únicamente su hilo */
+  private final List<List<String>> workerDnis = new ArrayList<>();
+
+  /** Cursos almacenados */
+  private final List<Course> courses = new ArrayList<>();
+
+  /** Números de teléfono entre los que eligen las altas de teléfonos */
+  private final List<String> phoneNumbers = new ArrayList<>();
+
+  /** Índice del siguiente estudiante generado durante la carga (altas y direcciones nuevas) */
+  private final AtomicLong nextIndex = new AtomicLong();
+
+  /** Siguiente operación a comenzar, cuando hay tasa objetivo */
+  private final AtomicLong tickets = new AtomicLong();
+
+  /** Latencias medidas de cada operación, en microsegundos */
+  private final Map<LoadOperation, Recorder> latencies = new EnumMap<>(LoadOperation.class);
+
+  /** Operaciones medidas que lanzaron una excepción, por operación */
+  private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+
+  /** Operaciones que lanzaron una excepción, por tipo de excepción */
+  private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor
+   * @param settings Configuración de la ejecución
+   */
+  public LoadDriver(LoadSettings settings) {
+
+    this.settings = settings;
+    this.generator = new DatasetGenerator(settings.seed(), PHONE_SHARE_RATIO);
+
+    CoursePersistence cPersistence = new CoursePersistence();
+    this.courseService = new CourseService(cPersistence);
+    this.studentService = new StudentService(new StudentPersistence(), cPersistence, new PhoneNumberPersistence(),
+        new AddressPersistence());
+
+    this.operations = settings.mix().keySet().toArray(new LoadOperation[0]);
+    this.cumulativeWeights = new int[operations.length];
+
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += settings.mix().get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+
+    for (LoadOperation operation : LoadOperation.values()) {
+      latencies.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+      errors.put(operation, new LongAdder());
+    }
+
+    for (int i = 0; i < settings.threads(); i++) {
+      workerDnis.add(new ArrayList<>());
+    }
+  }
+
+  /**
+   * Main
+   * @param args Argumentos {@code clave=valor}
+   */
+  public static void main(String[] args) {
+
+    LoadSettings settings;
+
+    try {
+      settings = LoadSettings.parse(args);
+
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("Uso: LoadDriver [mix=" + LoadSettings.DEFAULT_MIX + "] [threads=N] [virtual=true|false] "
+          + "[rate=ops/s] [duration=s] [warmup=s] [students=N] [seed=N] [histograms=directorio] [hibernate.*=valor]");
+      System.exit(2);
+      return;
+    }
+
+    if (!settings.hibernateProperties().isEmpty()) {
+      SessionFactoryProvider.configure(settings.hibernateProperties());
+    }
+
+    int status = 0;
+
+    try {
+      LoadDriver driver = new LoadDriver(settings);
+      driver.prepare();
+      driver.report(driver.run());
+
+    } catch (PersistenceException | ExecutionException | IOException e) {
+      LOGGER.error("Error durante la ejecución de la carga", e);
+      status = 1;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = 1;
+
+    } finally {
+      SessionFactoryProvider.shutdown();
+    }
+
+    System.exit(status);
+  }
+
+  /**
+   * Almacena los cursos y la población inicial de estudiantes, que se reparten entre los hilos
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  private void prepare() throws PersistenceException {
+
+    for (Course course : generator.generateCourses(SCHOOLS, COURSES_PER_SCHOOL, STARTING_YEAR)) {
+      courseService.save(course.getName(), course.getSchool(), course.getStartingYear());
+      courses.add(courseService.findByNameSchoolAndStartingYear(course.getName(), course.getSchool(),
+          course.getStartingYear()));
+    }
+
+    // Los números de teléfono se toman de estudiantes que nunca llegan a generarse durante la carga
+    for (Student student : generator.generateStudents(DatasetGenerator.MAX_STUDENTS - PHONE_NUMBERS, PHONE_NUMBERS,
+        List.of())) {
+      phoneNumbers.add(student.getPhoneNumbers().iterator().next().getNumber());
+    }
+
+    LOGGER.info("Almacenando {} estudiantes iniciales", settings.students());
+
+    for (long first = 0; first < settings.students(); first += CHUNK_SIZE) {
+
+      List<Student> students = generator.generateStudents(first, (int) Math.min(CHUNK_SIZE, settings.students() - first),
+          courses);
+      studentService.saveStudents(students);
+
+      for (int i = 0; i < students.size(); i++) {
+        workerDnis.get((int) ((first + i) % settings.threads())).add(students.get(i).getDni());
+      }
+    }
+
+    nextIndex.set(settings.students());
+    MetricsRegistry.reset();
+  }
+
+  /**
+   * Ejecuta la carga durante el calentamiento y el tiempo medido
+   * @return double - Segundos transcurridos desde el final del calentamiento hasta que termina el último hilo
+   * @throws ExecutionException   En caso de que algún hilo termine con un error inesperado
+   * @throws InterruptedException En caso de que el hilo se interrumpa mientras espera a la carga
+   */
+  private double run() throws ExecutionException, InterruptedException {
+
+    LOGGER.info("Ejecutando {} con {} hilos{} durante {} s, tras {} s de calentamiento", settings.mix(),
+        settings.threads(), settings.virtualThreads() ? " virtuales" : "", settings.durationSeconds(),
+        settings.warmupSeconds());
+
+    long start = System.nanoTime();
+    long measureStart = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+    long deadline = measureStart + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+
+    ExecutorService executor = settings.virtualThreads() ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(settings.threads());
+
+    try {
+      List<Future<?>> futures = new ArrayList<>(settings.threads());
+
+      for (int thread = 0; thread < settings.threads(); thread++) {
+        int worker = thread;
+        futures.add(executor.submit(() -> work(worker, start, measureStart, deadline)));
+      }
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return (System.nanoTime() - measureStart) / 1_000_000_000.0;
+  }
+
+  /**
+   * Ejecuta operaciones elegidas al azar según la mezcla hasta alcanzar el plazo
+   * @param worker       Hilo
+   * @param start        Comienzo de la carga, en nanosegundos
+   * @param measureStart Final del calentamiento, en nanosegundos. Sólo se miden las operaciones que empiezan después
+   * @param deadline     Plazo, en nanosegundos
+   */
+  private void work(int worker, long start, long measureStart, long deadline) {
+
+    SplittableRandom random = new SplittableRandom(settings.seed() + worker);
+    List<String> dnis = workerDnis.get(worker);
+    double periodNanos = settings.rate() > 0 ? 1_000_000_000.0 / settings.rate() : 0;
+
+    while (true) {
+
+      long scheduled;
+
+      if (periodNanos > 0) {
+
+        scheduled = start + (long) (tickets.getAndIncrement() * periodNanos);
+        if (scheduled >= deadline) {
+          return;
+        }
+
+        long wait = scheduled - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+
+      } else {
+
+        scheduled = System.nanoTime();
+        if (scheduled >= deadline) {
+          return;
+        }
+      }
+
+      LoadOperation operation = nextOperation(random);
+      if (operation.needsStudent() && dnis.isEmpty()) {
+        operation = LoadOperation.CREATE;
+      }
+
+      boolean failed = false;
+
+      try {
+        execute(operation, dnis, random);
+
+      } catch (PersistenceException | RuntimeException e) {
+        failed = true;
+        failures.computeIfAbsent(e.getClass().getSimpleName(), key -> new LongAdder()).increment();
+      }
+
+      if (scheduled >= measureStart) {
+        latencies.get(operation).recordValue(Math.max((System.nanoTime() - scheduled) / 1_000, 1));
+        if (failed) {
+          errors.get(operation).increment();
+        }
+      }
+    }
+  }
+
+  /**
+   * Elige una operación al azar según los pesos de la mezcla
+   * @param random Generador de números aleatorios del hilo
+   * @return LoadOperation
+   */
+  private LoadOperation nextOperation(SplittableRandom random) {
+
+    int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+    int i = 0;
+    while (value >= cumulativeWeights[i]) {
+      i++;
+    }
+
+    return operations[i];
+  }
+
+  /**
+   * Ejecuta una operación sobre uno de los estudiantes del hilo
+   * @param operation Operación
+   * @param dnis      DNIs de los estudiantes del hilo. Las altas y las bajas los actualizan
+   * @param random    Generador de números aleatorios del hilo
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  private void execute(LoadOperation operation, List<String> dnis, SplittableRandom random) throws PersistenceException {
+
+    switch (operation) {
+
+      case CREATE -> {
+        Student student = generator.generateStudents(nextIndex.getAndIncrement(), 1, List.of()).get(0);
+        studentService.saveOrUpdateStudent(student.getDni(), student.getName(), student.getBirthdate());
+        dnis.add(student.getDni());
+      }
+
+      case UPDATE_ADDRESS -> {
+        // La dirección de un estudiante nuevo no coincide con ninguna otra, por lo que nunca se comparte
+        Address address = generator.generateStudents(nextIndex.getAndIncrement(), 1, List.of()).get(0).getAddress();
+        studentService.saveOrUpdateAddress(dnis.get(random.nextInt(dnis.size())), address.getStreetAddress(),
+            address.getCity(), address.getPostalCode());
+      }
+
+      case ADD_PHONE -> studentService.addPhoneNumber(dnis.get(random.nextInt(dnis.size())),
+          phoneNumbers.get(random.nextInt(phoneNumbers.size())));
+
+      case ENROLL -> {
+        Course course = courses.get(random.nextInt(courses.size()));
+        studentService.setCourse(dnis.get(random.nextInt(dnis.size())), course.getName(), course.getSchool(),
+            course.getStartingYear());
+      }
+
+      case LIST -> studentService.getSummaryPage(dnis.get(random.nextInt(dnis.size())), PAGE_SIZE);
+
+      case DELETE -> {
+        // Se retira de la lista intercambiándolo con el último, para no desplazar los demás
+        int index = random.nextInt(dnis.size());
+        String dni = dnis.get(index);
+        dnis.set(index, dnis.get(dnis.size() - 1));
+        dnis.remove(dnis.size() - 1);
+
+        studentService.deleteStudent(dni);
+      }
+    }
+  }
+
+  /**
+   * Muestra el rendimiento y los percentiles de latencia de cada operación y, si se ha indicado un directorio, escribe en él
+   * el histograma de cada una ({@code operación.hgrm}, en milisegundos)
+   * @param elapsedSeconds Segundos medidos
+   * @throws IOException En caso de que no puedan escribirse los histogramas
+   */
+  private void report(double elapsedSeconds) throws IOException {
+
+    Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    Map<LoadOperation, Histogram> histograms = new EnumMap<>(LoadOperation.class);
+
+    for (LoadOperation operation : LoadOperation.values()) {
+
+      Histogram histogram = latencies.get(operation).getIntervalHistogram();
+      if (histogram.getTotalCount() > 0) {
+        histograms.put(operation, histogram);
+        total.add(histogram);
+      }
+    }
+
+    System.out.printf("Tasa objetivo: %s, duración medida: %.1f s, latencias en ms%n",
+        settings.rate() > 0 ? String.format("%.0f ops/s", settings.rate()) : "sin límite", elapsedSeconds);
+    System.out.printf("%-10s %10s %8s %10s %9s %9s %9s %9s %9s%n", "Operación", "Llamadas", "Errores", "ops/s", "p50",
+        "p90", "p99", "p99.9", "Máx");
+
+    long totalErrors = 0;
+    for (Map.Entry<LoadOperation, Histogram> entry : histograms.entrySet()) {
+      long operationErrors = errors.get(entry.getKey()).sum();
+      totalErrors += operationErrors;
+      printRow(entry.getKey().key(), entry.getValue(), operationErrors, elapsedSeconds);
+    }
+
+    printRow("total", total, totalErrors, elapsedSeconds);
+
+    if (!failures.isEmpty()) {
+      System.out.println("Excepciones, incluido el calentamiento: " + failures);
+    }
+
+    if (settings.histogramDirectory() != null) {
+
+      Files.createDirectories(settings.histogramDirectory());
+
+      for (Map.Entry<LoadOperation, Histogram> entry : histograms.entrySet()) {
+        try (PrintStream out = new PrintStream(
+            Files.newOutputStream(settings.histogramDirectory().resolve(entry.getKey().key() + ".hgrm")))) {
+          entry.getValue().outputPercentileDistribution(out, 1_000.0);
+        }
+      }
+
+      LOGGER.info("Histogramas escritos en {}", settings.histogramDirectory().toAbsolutePath());
+    }
+  }
+
+  /**
+   * Muestra una fila de resultados
+   * @param name           Nombre de la operación
+   * @param histogram      Latencias, en microsegundos
+   * @param errors         Llamadas que lanzaron una excepción
+   * @param elapsedSeconds Segundos medidos
+   */
+  private static void printRow(String name, Histogram histogram, long errors, double elapsedSeconds) {
+
+    System.out.printf("%-10s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n", name, histogram.getTotalCount(), errors,
+        histogram.getTotalCount() / elapsedSeconds, histogram.getValueAtPercentile(50) / 1_000.0,
+        histogram.getValueAtPercentile(90) / 1_000.0, histogram.getValueAtPercentile(99) / 1_000.0,
+        histogram.getValueAtPercentile(99.9) / 1_000.0, histogram.getMaxValue() / 1_000.0);
+  }
+
+}
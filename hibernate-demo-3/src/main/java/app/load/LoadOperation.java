@@ -0,0 +1,81 @@
+
+package app.load;
+
+import java.util.Locale;
+
+/** Operaciones que ejecuta el generador de carga, cada una sobre un método de los servicios */
+public enum LoadOperation {
+
+  /** Alta de un estudiante nuevo: {@link app.service.StudentService#saveOrUpdateStudent} */
+  CREATE("create", false),
+
+  /** Cambio de la dirección de un estudiante: {@link app.service.StudentService#saveOrUpdateAddress} */
+  UPDATE_ADDRESS("address", true),
+
+  /**
+   * Alta de un número de teléfono, que puede compartir con otros estudiantes:
+   * {@link app.service.StudentService#addPhoneNumber}
+   */
+  ADD_PHONE("phone", true),
+
+  /** Matrícula de un estudiante en un curso: {@link app.service.StudentService#setCourse} */
+  ENROLL("enroll", true),
+
+  /** Lectura de una página del listado de estudiantes: {@link app.service.StudentService#getSummaryPage} */
+  LIST("list", true),
+
+  /** Baja de un estudiante: {@link app.service.StudentService#deleteStudent} */
+  DELETE("delete", true);
+
+  /** Nombre de la operación en la mezcla de operaciones y en los resultados */
+  private final String key;
+
+  /** Indica si la operación necesita un estudiante existente */
+  private final boolean needsStudent;
+
+  /**
+   * Constructor
+   * @param key          Nombre de la operación
+   * @param needsStudent Indica si la operación necesita un estudiante existente
+   */
+  LoadOperation(String key, boolean needsStudent) {
+    this.key = key;
+    this.needsStudent = needsStudent;
+  }
+
+  /**
+   * Obtiene el nombre de la operación
+   * @return String
+   */
+  public String key() {
+    return key;
+  }
+
+  /**
+   * Indica si la operación necesita un estudiante existente
+   * @return boolean
+   */
+  public boolean needsStudent() {
+    return needsStudent;
+  }
+
+  /**
+   * Obtiene la operación con el nombre dado
+   * @param key Nombre de la operación, sin distinguir mayúsculas y minúsculas
+   * @return LoadOperation
+   * @throws IllegalArgumentException Si no existe ninguna operación con ese nombre
+   */
+  public static LoadOperation fromKey(String key) {
+
+    String normalized = key.trim().toLowerCase(Locale.ROOT);
+
+    for (LoadOperation operation : values()) {
+      if (operation.key.equals(normalized)) {
+        return operation;
+      }
+    }
+
+    throw new IllegalArgumentException("Operación desconocida: " + key);
+  }
+
+}
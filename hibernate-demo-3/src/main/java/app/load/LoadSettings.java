@@ -0,0 +1,142 @@
+
+package app.load;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Configuración de una ejecución del generador de carga. Se obtiene de argumentos {@code clave=valor}:
+ * <ul>
+ * <li>{@code mix}: peso de cada operación, como {@code create:10,address:15,phone:15,enroll:10,list:45,delete:5}. Las
+ * operaciones que no aparecen no se ejecutan</li>
+ * <li>{@code threads}: hilos de carga, cada uno con sus propios estudiantes</li>
+ * <li>{@code virtual}: {@code true} para usar hilos virtuales</li>
+ * <li>{@code rate}: operaciones por segundo entre todos los hilos. 0 para ejecutarlas sin pausa</li>
+ * <li>{@code duration} y {@code warmup}: segundos medidos y segundos previos de calentamiento, que no se miden</li>
+ * <li>{@code students}: estudiantes que se almacenan antes de empezar</li>
+ * <li>{@code seed}: semilla de los datos y de la elección de operaciones</li>
+ * <li>{@code histograms}: directorio donde se escribe el histograma de latencias de cada operación</li>
+ * <li>{@code hibernate.*}: propiedades que sobrescriben las de hibernate.cfg.xml, como la URL de la DB</li>
+ * </ul>
+ * @param mix                 Peso de cada operación. Sólo contiene las operaciones con peso mayor que 0
+ * @param threads             Hilos de carga
+ * @param virtualThreads      Indica si los hilos de carga son virtuales
+ * @param rate                Operaciones por segundo. 0 si no se limitan
+ * @param durationSeconds     Segundos medidos
+ * @param warmupSeconds       Segundos de calentamiento
+ * @param students            Estudiantes almacenados antes de empezar
+ * @param seed                Semilla
+ * @param histogramDirectory  Directorio de los histogramas. Será null si no deben escribirse
+ * @param hibernateProperties Propiedades que sobrescriben las de hibernate.cfg.xml
+ */
+public record LoadSettings(Map<LoadOperation, Integer> mix, int threads, boolean virtualThreads, double rate,
+    int durationSeconds, int warmupSeconds, long students, long seed, Path histogramDirectory,
+    Properties hibernateProperties) {
+
+  /** Mezcla de operaciones por defecto: predominan las lecturas y hay menos bajas que altas */
+  public static final String DEFAULT_MIX = "create:10,address:15,phone:15,enroll:10,list:45,delete:5";
+
+  /** Prefijo de las propiedades de Hibernate */
+  private static final String HIBERNATE_PREFIX = "hibernate.";
+
+  /**
+   * Obtiene la configuración a partir de los argumentos de la línea de comandos. Los que no se indican toman su valor por
+   * defecto
+   * @param args Argumentos {@code clave=valor}
+   * @return LoadSettings
+   * @throws IllegalArgumentException Si algún argumento es desconocido o su valor no es válido
+   */
+  public static LoadSettings parse(String[] args) {
+
+    String mix = DEFAULT_MIX;
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean virtualThreads = false;
+    double rate = 0;
+    int durationSeconds = 30;
+    int warmupSeconds = 5;
+    long students = 10_000;
+    long seed = 1;
+    Path histogramDirectory = null;
+    Properties hibernateProperties = new Properties();
+
+    for (String arg : args) {
+
+      int separator = arg.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Los argumentos deben tener la forma clave=valor: " + arg);
+      }
+
+      String key = arg.substring(0, separator);
+      String value = arg.substring(separator + 1);
+
+      try {
+        switch (key) {
+          case "mix" -> mix = value;
+          case "threads" -> threads = Integer.parseInt(value);
+          case "virtual" -> virtualThreads = Boolean.parseBoolean(value);
+          case "rate" -> rate = Double.parseDouble(value);
+          case "duration" -> durationSeconds = Integer.parseInt(value);
+          case "warmup" -> warmupSeconds = Integer.parseInt(value);
+          case "students" -> students = Long.parseLong(value);
+          case "seed" -> seed = Long.parseLong(value);
+          case "histograms" -> histogramDirectory = Path.of(value);
+          default -> {
+            if (!key.startsWith(HIBERNATE_PREFIX)) {
+              throw new IllegalArgumentException("Argumento desconocido: " + key);
+            }
+            hibernateProperties.put(key, value);
+          }
+        }
+
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("El valor de " + key + " no es un número válido: " + value, e);
+      }
+    }
+
+    if (threads <= 0 || rate < 0 || durationSeconds <= 0 || warmupSeconds < 0 || students < 0) {
+      throw new IllegalArgumentException(
+          "Los hilos y la duración deben ser mayores que 0, y la tasa, el calentamiento y los estudiantes no negativos");
+    }
+
+    return new LoadSettings(parseMix(mix), threads, virtualThreads, rate, durationSeconds, warmupSeconds, students, seed,
+        histogramDirectory, hibernateProperties);
+  }
+
+  /**
+   * Obtiene el peso de cada operación a partir de su representación textual
+   * @param mix Pares {@code operación:peso} separados por comas
+   * @return Map(LoadOperation, Integer) - Inmutable, en el orden de declaración de las operaciones
+   * @throws IllegalArgumentException Si alguna operación o peso no es válido, o si ninguna operación tiene peso
+   */
+  private static Map<LoadOperation, Integer> parseMix(String mix) {
+
+    Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+
+    for (String entry : mix.split(",")) {
+
+      String[] parts = entry.split(":");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Las operaciones deben tener la forma operación:peso: " + entry);
+      }
+
+      int weight = Integer.parseInt(parts[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("El peso de una operación no puede ser negativo: " + entry);
+      }
+
+      if (weight > 0) {
+        weights.put(LoadOperation.fromKey(parts[0]), weight);
+      }
+    }
+
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("Al menos una operación debe tener peso");
+    }
+
+    return Collections.unmodifiableMap(weights);
+  }
+
+}
@@ -0,0 +1,124 @@
+
+package app.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import app.entity.persistence.exceptions.PersistenceException;
+
+/**
+ * Métricas de las operaciones de un componente (un sistema de persistencia o un servicio). Cada operación se mide por su
+ * nombre de método, y se registra en {@link MetricsRegistry} como componente.método la primera vez que se invoca
+ */
+public final class ComponentMetrics {
+
+  /** Nombre del componente */
+  private final String component;
+
+  /** Métricas de cada operación del componente, por nombre de método */
+  private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor
+   * @param component Nombre del componente
+   */
+  ComponentMetrics(String component) {
+    this.component = component;
+  }
+
+  /**
+   * Llamada medida que devuelve un resultado
+   * @param <T> Tipo del resultado
+   */
+  @FunctionalInterface
+  public interface Call<T> {
+
+    /**
+     * Ejecuta la llamada
+     * @return T
+     * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+     */
+    T call() throws PersistenceException;
+  }
+
+  /** Llamada medida sin resultado */
+  @FunctionalInterface
+  public interface Action {
+
+    /**
+     * Ejecuta la llamada
+     * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+     */
+    void run() throws PersistenceException;
+  }
+
+  /**
+   * Ejecuta una llamada y registra su latencia. Si lanza una excepción, se contabiliza como error y se propaga sin modificar
+   * @param <T>       Tipo del resultado
+   * @param operation Nombre del método
+   * @param call      Llamada
+   * @return T - Resultado de la llamada
+   * @throws PersistenceException En caso de que la llamada la lance
+   */
+  public <T> T time(String operation, Call<T> call) throws PersistenceException {
+
+    long start = System.nanoTime();
+    boolean failed = true;
+
+    try {
+      T result = call.call();
+      failed = false;
+      return result;
+
+    } finally {
+      operation(operation).record(System.nanoTime() - start, failed);
+    }
+  }
+
+  /**
+   * Ejecuta una llamada sin resultado y registra su latencia. Si lanza una excepción, se contabiliza como error y se propaga
+   * sin modificar
+   * @param operation Nombre del método
+   * @param action    Llamada
+   * @throws PersistenceException En caso de que la llamada la lance
+   */
+  public void run(String operation, Action action) throws PersistenceException {
+
+    long start = System.nanoTime();
+    boolean failed = true;
+
+    try {
+      action.run();
+      failed = false;
+
+    } finally {
+      operation(operation).record(System.nanoTime() - start, failed);
+    }
+  }
+
+  /**
+   * Registra un intento de una operación que falló por un conflicto de concurrencia
+   * @param operation Nombre del método
+   * @param retried   Indica si el intento se repite
+   */
+  public void recordConflict(String operation, boolean retried) {
+    operation(operation).recordConflict(retried);
+  }
+
+  /**
+   * Obtiene las métricas de una operación, registrándolas si es su primera llamada
+   * @param operation Nombre del método
+   * @return OperationMetrics
+   */
+  private OperationMetrics operation(String operation) {
+
+    OperationMetrics metrics = operations.get(operation);
+
+    if (metrics == null) {
+      metrics = operations.computeIfAbsent(operation, name -> MetricsRegistry.register(component + "." + name));
+    }
+
+    return metrics;
+  }
+
+}
@@ -0,0 +1,67 @@
+
+package app.metrics;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * Instantánea de las estadísticas de Hibernate de la factoría de sesiones. Requiere hibernate.generate_statistics
+ * @param queryExecutions         Consultas HQL y nativas ejecutadas
+ * @param queryExecutionMaxMillis Tiempo de la consulta más lenta, en milisegundos
+ * @param slowestQuery            Consulta más lenta. Será null si no se ha ejecutado ninguna
+ * @param prepareStatements       Sentencias JDBC preparadas
+ * @param entityLoads             Entidades cargadas desde la DB
+ * @param entityFetches           Entidades obtenidas mediante consultas adicionales (relaciones perezosas)
+ * @param entityInserts           Entidades insertadas
+ * @param entityUpdates           Entidades actualizadas
+ * @param entityDeletes           Entidades eliminadas
+ * @param collectionLoads         Colecciones cargadas desde la DB
+ * @param collectionFetches       Colecciones obtenidas mediante consultas adicionales
+ * @param secondLevelCacheHits    Aciertos de la caché de segundo nivel
+ * @param secondLevelCacheMisses  Fallos de la caché de segundo nivel
+ * @param secondLevelCachePuts    Datos almacenados en la caché de segundo nivel
+ * @param naturalIdCacheHits      Aciertos de la caché de identificadores naturales
+ * @param naturalIdCacheMisses    Fallos de la caché de identificadores naturales
+ * @param queryCacheHits          Aciertos de la caché de consultas
+ * @param queryCacheMisses        Fallos de la caché de consultas
+ * @param flushes                 Vaciados de sesión
+ * @param sessionsOpened          Sesiones abiertas
+ * @param transactions            Transacciones completadas
+ * @param optimisticFailures      Conflictos de bloqueo optimista
+ */
+public record HibernateStats(long queryExecutions, long queryExecutionMaxMillis, String slowestQuery,
+    long prepareStatements, long entityLoads, long entityFetches, long entityInserts, long entityUpdates,
+    long entityDeletes, long collectionLoads, long collectionFetches, long secondLevelCacheHits,
+    long secondLevelCacheMisses, long secondLevelCachePuts, long naturalIdCacheHits, long naturalIdCacheMisses,
+    long queryCacheHits, long queryCacheMisses, long flushes, long sessionsOpened, long transactions,
+    long optimisticFailures) {
+
+  /**
+   * Genera una instantánea a partir de las estadísticas de Hibernate
+   * @param statistics Estadísticas de la factoría de sesiones
+   * @return HibernateStats
+   */
+  static HibernateStats of(Statistics statistics) {
+    return new HibernateStats(statistics.getQueryExecutionCount(), statistics.getQueryExecutionMaxTime(),
+        statistics.getQueryExecutionMaxTimeQueryString(), statistics.getPrepareStatementCount(),
+        statistics.getEntityLoadCount(), statistics.getEntityFetchCount(), statistics.getEntityInsertCount(),
+        statistics.getEntityUpdateCount(), statistics.getEntityDeleteCount(), statistics.getCollectionLoadCount(),
+        statistics.getCollectionFetchCount(), statistics.getSecondLevelCacheHitCount(),
+        statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount(),
+        statistics.getNaturalIdCacheHitCount(), statistics.getNaturalIdCacheMissCount(),
+        statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(), statistics.getFlushCount(),
+        statistics.getSessionOpenCount(), statistics.getTransactionCount(), statistics.getOptimisticFailureCount());
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Queries: %d (max %d ms), Statements: %d, Entity Loads: %d, Fetches: %d, Inserts: %d, Updates: %d, Deletes: %d, "
+            + "Collection Loads: %d, Fetches: %d, L2 Hits: %d, Misses: %d, Puts: %d, NaturalId Hits: %d, Misses: %d, "
+            + "Query Cache Hits: %d, Misses: %d, Flushes: %d, Sessions: %d, Transactions: %d, Optimistic Failures: %d",
+        queryExecutions, queryExecutionMaxMillis, prepareStatements, entityLoads, entityFetches, entityInserts,
+        entityUpdates, entityDeletes, collectionLoads, collectionFetches, secondLevelCacheHits, secondLevelCacheMisses,
+        secondLevelCachePuts, naturalIdCacheHits, naturalIdCacheMisses, queryCacheHits, queryCacheMisses, flushes,
+        sessionsOpened, transactions, optimisticFailures);
+  }
+
+}
@@ -0,0 +1,137 @@
+
+package app.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.sql.SqlObserver;
+
+/**
+ * Registro de métricas de la aplicación: latencias, llamadas y errores de cada operación de los sistemas de persistencia y
+ * de los servicios, junto con las estadísticas de Hibernate, del pool de conexiones, de la caché de segundo nivel y de las
+ * sentencias SQL. Todo ello se publica por JMX bajo el nombre {@value #MBEAN_NAME}
+ */
+public final class MetricsRegistry {
+
+  /** Nombre JMX del bean de métricas */
+  public static final String MBEAN_NAME = "app:type=PersistenceMetrics";
+
+  /** Propiedad que indica si las métricas se publican por JMX al construir la factoría. Por defecto, true */
+  public static final String JMX_ENABLED = "app.metrics.jmx";
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+
+  /** Métricas de cada operación, por nombre (componente.método) */
+  private static final ConcurrentMap<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+
+  /** Constructor privado para evitar instanciación de clase */
+  private MetricsRegistry() {
+  }
+
+  /**
+   * Obtiene las métricas de las operaciones de un componente
+   * @param component Clase del componente. Su nombre simple se usa como prefijo de las operaciones
+   * @return ComponentMetrics
+   */
+  public static ComponentMetrics forComponent(Class<?> component) {
+    return new ComponentMetrics(component.getSimpleName());
+  }
+
+  /**
+   * Obtiene una instantánea de las métricas de todas las operaciones invocadas al menos una vez
+   * @return List(OperationStats) - Ordenada por nombre de operación
+   */
+  public static List<OperationStats> getOperations() {
+
+    List<OperationStats> result = new ArrayList<>(OPERATIONS.size());
+
+    for (OperationMetrics metrics : OPERATIONS.values()) {
+      result.add(metrics.snapshot());
+    }
+
+    result.sort(Comparator.comparing(OperationStats::name));
+    return result;
+  }
+
+  /**
+   * Obtiene una instantánea de las estadísticas de Hibernate de la factoría de sesiones compartida, construyéndola si es
+   * necesario
+   * @return HibernateStats
+   */
+  public static HibernateStats getHibernateStatistics() {
+    return HibernateStats.of(SessionFactoryProvider.getSessionFactory().getStatistics());
+  }
+
+  /** Descarta las métricas acumuladas de todas las operaciones y las estadísticas de Hibernate y de las sentencias SQL */
+  public static void reset() {
+
+    for (OperationMetrics metrics : OPERATIONS.values()) {
+      metrics.reset();
+    }
+
+    SessionFactoryProvider.getSessionFactory().getStatistics().clear();
+
+    SqlObserver observer = SessionFactoryProvider.getSqlObserver();
+    if (observer != null) {
+      observer.reset();
+    }
+  }
+
+  /**
+   * Publica el bean de métricas en el servidor JMX de la plataforma. Si ya está publicado, no se realiza ninguna acción
+   */
+  public static synchronized void registerMBean() {
+
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MBEAN_NAME);
+
+      if (!server.isRegistered(name)) {
+        server.registerMBean(new PersistenceMetrics(), name);
+        LOGGER.info("Métricas publicadas por JMX como {}", MBEAN_NAME);
+      }
+
+    } catch (JMException e) {
+      LOGGER.warn("No se han podido publicar las métricas por JMX", e);
+    }
+  }
+
+  /** Retira el bean de métricas del servidor JMX de la plataforma. Si no está publicado, no se realiza ninguna acción */
+  public static synchronized void unregisterMBean() {
+
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MBEAN_NAME);
+
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+
+    } catch (JMException e) {
+      LOGGER.warn("No se ha podido retirar el bean de métricas de JMX", e);
+    }
+  }
+
+  /**
+   * Registra una operación, o devuelve la ya registrada con el mismo nombre
+   * @param name Nombre de la operación (componente.método)
+   * @return OperationMetrics
+   */
+  static OperationMetrics register(String name) {
+    return OPERATIONS.computeIfAbsent(name, OperationMetrics::new);
+  }
+
+}
@@ -0,0 +1,112 @@
+
+package app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Métricas de una operación: número de llamadas, número de errores, conflictos de concurrencia e histograma de latencias.
+ * Las latencias se registran en microsegundos sin bloqueos desde cualquier hilo, y se acumulan en el histograma total al
+ * generar una instantánea
+ */
+final class OperationMetrics {
+
+  /** Dígitos significativos de los histogramas (precisión del 1%) */
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  /** Nombre de la operación */
+  private final String name;
+
+  /** Número de llamadas */
+  private final LongAdder calls = new LongAdder();
+
+  /** Número de llamadas que lanzaron una excepción */
+  private final LongAdder errors = new LongAdder();
+
+  /** Número de intentos que fallaron por un conflicto de concurrencia */
+  private final LongAdder conflicts = new LongAdder();
+
+  /** Número de intentos repetidos tras un conflicto */
+  private final LongAdder retries = new LongAdder();
+
+  /** Latencias registradas desde la última instantánea */
+  private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+  /** Latencias acumuladas desde el arranque o el último reinicio */
+  private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+
+  /** Histograma de intervalo reutilizado entre instantáneas */
+  private Histogram interval;
+
+  /**
+   * Constructor
+   * @param name Nombre de la operación
+   */
+  OperationMetrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Registra una llamada
+   * @param elapsedNanos Duración de la llamada, en nanosegundos
+   * @param failed       Indica si la llamada lanzó una excepción
+   */
+  void record(long elapsedNanos, boolean failed) {
+
+    calls.increment();
+    if (failed) {
+      errors.increment();
+    }
+
+    recorder.recordValue(Math.max(elapsedNanos / 1_000, 1));
+  }
+
+  /**
+   * Registra un intento fallido por un conflicto de concurrencia
+   * @param retried Indica si el intento se repite
+   */
+  void recordConflict(boolean retried) {
+
+    conflicts.increment();
+    if (retried) {
+      retries.increment();
+    }
+  }
+
+  /**
+   * Genera una instantánea de las métricas acumuladas
+   * @return OperationStats
+   */
+  synchronized OperationStats snapshot() {
+
+    interval = recorder.getIntervalHistogram(interval);
+    total.add(interval);
+
+    return new OperationStats(name, calls.sum(), errors.sum(), conflicts.sum(), retries.sum(),
+        toMillis(total.getValueAtPercentile(50)), toMillis(total.getValueAtPercentile(95)),
+        toMillis(total.getValueAtPercentile(99)), toMillis(total.getMaxValue()));
+  }
+
+  /** Descarta todas las métricas acumuladas */
+  synchronized void reset() {
+
+    recorder.reset();
+    total.reset();
+    calls.reset();
+    errors.reset();
+    conflicts.reset();
+    retries.reset();
+  }
+
+  /**
+   * Convierte microsegundos a milisegundos
+   * @param micros Microsegundos
+   * @return double
+   */
+  private static double toMillis(long micros) {
+    return micros / 1_000.0;
+  }
+
+}
@@ -0,0 +1,35 @@
+
+package app.metrics;
+
+/**
+ * Instantánea de las métricas de una operación
+ * @param name      Nombre de la operación (componente.método)
+ * @param calls     Llamadas desde el arranque o el último reinicio
+ * @param errors    Llamadas que lanzaron una excepción
+ * @param conflicts Intentos que fallaron por un conflicto de concurrencia (bloqueo optimista)
+ * @param retries   Intentos repetidos tras un conflicto
+ * @param p50Millis Percentil 50 de la latencia, en milisegundos
+ * @param p95Millis Percentil 95 de la latencia, en milisegundos
+ * @param p99Millis Percentil 99 de la latencia, en milisegundos
+ * @param maxMillis Latencia máxima, en milisegundos
+ */
+public record OperationStats(String name, long calls, long errors, long conflicts, long retries, double p50Millis,
+    double p95Millis, double p99Millis, double maxMillis) {
+
+  /**
+   * Obtiene la tasa de conflictos: intentos fallidos por un conflicto de concurrencia por cada llamada
+   * @return double - 0 si no hay llamadas
+   */
+  public double conflictRate() {
+    return calls == 0 ? 0 : (double) conflicts / calls;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s - Calls: %d, Errors: %d, Conflicts: %d (%.2f%%), Retries: %d, p50: %.3f ms, p95: %.3f ms, p99: %.3f ms, "
+            + "Max: %.3f ms",
+        name, calls, errors, conflicts, conflictRate() * 100, retries, p50Millis, p95Millis, p99Millis, maxMillis);
+  }
+
+}
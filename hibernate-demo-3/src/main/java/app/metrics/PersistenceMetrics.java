@@ -0,0 +1,51 @@
+
+package app.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.cache.CacheRegionStats;
+import app.entity.persistence.pool.ConnectionPoolMetrics;
+import app.entity.persistence.pool.ConnectionPoolStats;
+import app.entity.persistence.sql.SqlObserver;
+import app.entity.persistence.sql.SqlStatementStats;
+
+/** Implementación del bean JMX de las métricas de persistencia */
+final class PersistenceMetrics implements PersistenceMetricsMXBean {
+
+  @Override
+  public List<OperationStats> getOperations() {
+    return MetricsRegistry.getOperations();
+  }
+
+  @Override
+  public HibernateStats getHibernateStatistics() {
+    return MetricsRegistry.getHibernateStatistics();
+  }
+
+  @Override
+  public ConnectionPoolStats getConnectionPool() {
+
+    ConnectionPoolMetrics metrics = SessionFactoryProvider.getConnectionPoolMetrics();
+    return metrics == null ? null : metrics.snapshot();
+  }
+
+  @Override
+  public List<CacheRegionStats> getCacheRegions() {
+    return SessionFactoryProvider.getCacheRegionStatistics();
+  }
+
+  @Override
+  public List<SqlStatementStats> getSqlStatements() {
+
+    SqlObserver observer = SessionFactoryProvider.getSqlObserver();
+    return observer == null ? new ArrayList<>() : observer.snapshot();
+  }
+
+  @Override
+  public void reset() {
+    MetricsRegistry.reset();
+  }
+
+}
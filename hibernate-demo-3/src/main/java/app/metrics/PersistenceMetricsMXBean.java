@@ -0,0 +1,47 @@
+
+package app.metrics;
+
+import java.util.List;
+
+import app.entity.persistence.cache.CacheRegionStats;
+import app.entity.persistence.pool.ConnectionPoolStats;
+import app.entity.persistence.sql.SqlStatementStats;
+
+/** Bean JMX de las métricas de persistencia, publicado por {@link MetricsRegistry#registerMBean()} */
+public interface PersistenceMetricsMXBean {
+
+  /**
+   * Obtiene las métricas de todas las operaciones de los sistemas de persistencia y de los servicios
+   * @return List(OperationStats)
+   */
+  List<OperationStats> getOperations();
+
+  /**
+   * Obtiene las estadísticas de Hibernate
+   * @return HibernateStats
+   */
+  HibernateStats getHibernateStatistics();
+
+  /**
+   * Obtiene el estado del pool de conexiones
+   * @return ConnectionPoolStats - Será null si la factoría no utiliza el pool
+   */
+  ConnectionPoolStats getConnectionPool();
+
+  /**
+   * Obtiene las estadísticas de cada región de la caché de segundo nivel
+   * @return List(CacheRegionStats)
+   */
+  List<CacheRegionStats> getCacheRegions();
+
+  /**
+   * Obtiene las estadísticas de las sentencias SQL, agrupadas por huella
+   * @return List(SqlStatementStats) - Ordenada por tiempo total de ejecución, de mayor a menor. Vacía si el observador de
+   *         sentencias está desactivado
+   */
+  List<SqlStatementStats> getSqlStatements();
+
+  /** Descarta las métricas acumuladas de todas las operaciones y las estadísticas de Hibernate y de las sentencias SQL */
+  void reset();
+
+}
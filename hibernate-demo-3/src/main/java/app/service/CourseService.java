@@ -4,13 +4,20 @@ package app.service;
 import java.util.List;
 
 import app.entity.Course;
+import app.entity.dto.CourseEnrollment;
 import app.entity.persistence.CoursePersistence;
+import app.entity.persistence.UnitOfWork;
 import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import app.metrics.MetricsRegistry;
 import app.service.validation.CourseValidation;
 
 /** Servicio de gestión de cursos */
 public class CourseService {
 
+  /** Métricas de las operaciones */
+  private static final ComponentMetrics METRICS = MetricsRegistry.forComponent(CourseService.class);
+
   /** Sistema de persistencia de cursos */
   private CoursePersistence cPersistence;
 
@@ -33,27 +40,34 @@ public class CourseService {
    */
   public Integer save(String name, String school, int startingYear) throws PersistenceException {
 
-    // Se verifican los datos del curso
-    if (CourseValidation.isValidName(name) && CourseValidation.isValidSchool(school)) {
+    return METRICS.time("save", () -> {
 
-      // Se comprueba si ya existía previamente y sino se crea
-      Course course = cPersistence.findByNameSchoolAndStartingYear(name, school, startingYear);
+      // Se verifican los datos del curso
+      if (CourseValidation.isValidName(name) && CourseValidation.isValidSchool(school)) {
 
-      // Si no existe, se crea y almacena
-      if (course == null) {
+        // Búsqueda y almacenamiento en la misma sesión y transacción
+        return UnitOfWork.execute(() -> {
 
-        course = new Course();
-        course.setName(name);
-        course.setSchool(school);
-        course.setStartingYear(startingYear);
-      }
+          // Se comprueba si ya existía previamente y sino se crea
+          Course course = cPersistence.findByNameSchoolAndStartingYear(name, school, startingYear);
+
+          // Si no existe, se crea y almacena
+          if (course == null) {
 
-      // Se persiste la dirección
-      return cPersistence.saveOrUpdateCourse(course);
+            course = new Course();
+            course.setName(name);
+            course.setSchool(school);
+            course.setStartingYear(startingYear);
+          }
 
-    } else {
-      throw new IllegalArgumentException("Los datos de la dirección no son válidos. No se crearán.");
-    }
+          // Se persiste la dirección
+          return cPersistence.saveOrUpdateCourse(course);
+        });
+
+      } else {
+        throw new IllegalArgumentException("Los datos de la dirección no son válidos. No se crearán.");
+      }
+    });
   }
 
   /**
@@ -62,7 +76,16 @@ public class CourseService {
    * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
    */
   public List<Course> getAll() throws PersistenceException {
-    return cPersistence.getAllCourse();
+    return METRICS.time("getAll", () -> cPersistence.getAllCourse());
+  }
+
+  /**
+   * Obtiene el número de estudiantes matriculados en cada curso, sin cargar entidades
+   * @return List(CourseEnrollment)
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  public List<CourseEnrollment> getEnrollmentReport() throws PersistenceException {
+    return METRICS.time("getEnrollmentReport", () -> cPersistence.getEnrollmentReport());
   }
 
   /**
@@ -73,7 +96,11 @@ public class CourseService {
    * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
    */
   public void deleteCourse(String name, String school, int startingYear) throws PersistenceException {
-    cPersistence.deleteCourse(findByNameSchoolAndStartingYear(name, school, startingYear).getId());
+
+    METRICS.run("deleteCourse", () -> UnitOfWork.execute(() -> {
+      cPersistence.deleteCourse(cPersistence.findByNameSchoolAndStartingYear(name, school, startingYear).getId());
+      return null;
+    }));
   }
 
   /**
@@ -85,7 +112,8 @@ public class CourseService {
    * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
    */
   public Course findByNameSchoolAndStartingYear(String name, String school, int startingYear) throws PersistenceException {
-    return cPersistence.findByNameSchoolAndStartingYear(name, school, startingYear);
+    return METRICS.time("findByNameSchoolAndStartingYear",
+        () -> cPersistence.findByNameSchoolAndStartingYear(name, school, startingYear));
   }
 
 }
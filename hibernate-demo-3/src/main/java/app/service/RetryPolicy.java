@@ -0,0 +1,176 @@
+
+package app.service;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+
+import app.entity.constants.DbConstants;
+import app.entity.persistence.UnitOfWork;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import jakarta.persistence.OptimisticLockException;
+
+/**
+ * Política de reintentos de las operaciones de escritura ante conflictos de concurrencia: un fallo del bloqueo optimista
+ * (otra transacción modificó la misma entidad) o una clave única duplicada en una de las entidades que se buscan y, si no
+ * existen, se insertan (otra transacción insertó la misma entidad entre la búsqueda y la inserción). El resto de
+ * violaciones de claves únicas se repetirían en cada intento, por lo que no se reintentan. La operación se repite
+ * completa, en una unidad de trabajo nueva, tras una espera exponencial con fluctuación aleatoria acotada por la espera
+ * máxima.<br>
+ * Si se invoca dentro de una unidad de trabajo ya abierta, la operación se ejecuta una única vez: la sesión de la unidad de
+ * trabajo exterior no puede reutilizarse tras el fallo, por lo que el reintento corresponde a quien la abrió
+ */
+public final class RetryPolicy {
+
+  /** Política por defecto: hasta 5 intentos, con esperas desde 10 ms hasta 500 ms */
+  public static final RetryPolicy DEFAULT = new RetryPolicy(5, 10, 500);
+
+  /** Política sin reintentos */
+  public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+  /**
+   * Claves únicas de las entidades que las operaciones buscan y, si no existen, insertan: número de teléfono, dirección y
+   * DNI del estudiante. En minúsculas y sin el esquema ni la tabla
+   */
+  private static final Set<String> INSERT_RACE_CONSTRAINTS = Set.of(DbConstants.PHONE_NUMBER_NUM_UNIQUE,
+      DbConstants.ADDRESS_STREET_CITY_UNIQUE, DbConstants.STUDENT_DNI_UNIQUE);
+
+  /** Número máximo de intentos, incluido el primero */
+  private final int maxAttempts;
+
+  /** Espera máxima antes del primer reintento, en milisegundos */
+  private final long initialBackoffMillis;
+
+  /** Espera máxima antes de cualquier reintento, en milisegundos */
+  private final long maxBackoffMillis;
+
+  /**
+   * Constructor
+   * @param maxAttempts          Número máximo de intentos, incluido el primero. Mayor que 0
+   * @param initialBackoffMillis Espera máxima antes del primer reintento, en milisegundos. Se duplica en cada reintento. No
+   *                             negativa
+   * @param maxBackoffMillis     Espera máxima antes de cualquier reintento, en milisegundos. No menor que la inicial
+   * @throws IllegalArgumentException Si alguno de los parámetros no es válido
+   */
+  public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+
+    if (maxAttempts <= 0 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+      throw new IllegalArgumentException("Los parámetros de la política de reintentos no son válidos");
+    }
+
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+  }
+
+  /**
+   * Obtiene el número máximo de intentos
+   * @return int
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * Ejecuta una operación, repitiéndola mientras falle por un conflicto de concurrencia y queden intentos. Cada conflicto se
+   * registra en las métricas de la operación
+   * @param <T>       Tipo del resultado
+   * @param metrics   Métricas del componente
+   * @param operation Nombre de la operación
+   * @param call      Operación. Debe abrir su propia unidad de trabajo, para que cada intento parta de una sesión nueva
+   * @return T - Resultado del primer intento que termine sin conflicto
+   * @throws PersistenceException En caso de que la operación falle por otro motivo, o por un conflicto en el último intento
+   */
+  public <T> T execute(ComponentMetrics metrics, String operation, ComponentMetrics.Call<T> call)
+      throws PersistenceException {
+
+    int attempts = UnitOfWork.isActive() ? 1 : maxAttempts;
+
+    for (int attempt = 1;; attempt++) {
+
+      try {
+        return call.call();
+
+      } catch (PersistenceException e) {
+
+        if (!isConflict(e)) {
+          throw e;
+        }
+
+        boolean retry = attempt < attempts;
+        metrics.recordConflict(operation, retry);
+
+        if (!retry) {
+          throw new PersistenceException("Conflicto de concurrencia tras " + attempt + " intentos: " + e.getMessage(), e);
+        }
+
+        backOff(attempt);
+      }
+    }
+  }
+
+  /**
+   * Comprueba si una excepción se debe a un conflicto de concurrencia que puede resolverse repitiendo la operación
+   * @param exception Excepción
+   * @return boolean
+   */
+  static boolean isConflict(Throwable exception) {
+
+    for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+
+      if (cause instanceof StaleStateException || cause instanceof OptimisticLockException) {
+        return true;
+
+      } else if (cause instanceof ConstraintViolationException violation) {
+        return violation.getKind() == ConstraintKind.UNIQUE && isInsertRace(violation.getConstraintName());
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Comprueba si una clave única es una de las que pueden violarse por dos inserciones concurrentes de la misma entidad
+   * @param constraintName Nombre de la clave según el driver. Puede incluir el esquema o la tabla ({@code PUBLIC.UK_X} en
+   *                       H2, {@code t_x.uk_x} en MySQL). Null si el driver no lo informa
+   * @return boolean
+   */
+  private static boolean isInsertRace(String constraintName) {
+
+    if (constraintName == null) {
+      return false;
+    }
+
+    String name = constraintName.substring(constraintName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    return INSERT_RACE_CONSTRAINTS.contains(name);
+  }
+
+  /**
+   * Espera antes de un reintento. La espera es aleatoria entre 0 y el doble de la anterior, para que los escritores que
+   * entraron en conflicto no vuelvan a coincidir
+   * @param attempt Número del intento fallido
+   * @throws PersistenceException En caso de que el hilo se interrumpa durante la espera
+   */
+  private void backOff(int attempt) throws PersistenceException {
+
+    long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+
+    if (ceiling <= 0) {
+      return;
+    }
+
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("Reintento interrumpido", e);
+    }
+  }
+
+}
@@ -2,25 +2,42 @@
 package app.service;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import app.entity.Address;
 import app.entity.Course;
 import app.entity.PhoneNumber;
 import app.entity.Student;
+import app.entity.dto.StudentSummary;
 import app.entity.persistence.AddressPersistence;
 import app.entity.persistence.CoursePersistence;
 import app.entity.persistence.PhoneNumberPersistence;
+import app.entity.persistence.StudentFetchPlan;
 import app.entity.persistence.StudentPersistence;
+import app.entity.persistence.UnitOfWork;
 import app.entity.persistence.exceptions.PersistenceException;
+import app.metrics.ComponentMetrics;
+import app.metrics.MetricsRegistry;
 import app.service.validation.AddressValidation;
+import app.service.validation.BulkValidation;
 import app.service.validation.PhoneNumberValidation;
 import app.service.validation.StudentValidation;
-
-/** Servicio de gestión de estudiantes */
+import app.service.validation.ValidationResult;
+
+/**
+ * Servicio de gestión de estudiantes. Cada operación de escritura se ejecuta en una única unidad de trabajo (una sesión y
+ * una transacción): las entidades obtenidas siguen gestionadas, por lo que sus cambios se almacenan al confirmarla sin
+ * volver a fusionar grafos desconectados.<br>
+ * Las entidades tienen versión, por lo que dos escrituras concurrentes sobre el mismo estudiante no se sobrescriben: la
+ * segunda falla por el bloqueo optimista y la política de reintentos repite la operación completa sobre los datos nuevos
+ */
 public class StudentService {
 
+  /** Métricas de las operaciones */
+  private static final ComponentMetrics METRICS = MetricsRegistry.forComponent(StudentService.class);
+
   /** Sistema de persistencia de estudiantes */
   private StudentPersistence stPersistence;
 
@@ -33,8 +50,11 @@ public class StudentService {
   /** Sistema de persistencia de las direcciones */
   private AddressPersistence aPersistence;
 
+  /** Política de reintentos de las operaciones de escritura ante conflictos de concurrencia */
+  private RetryPolicy retryPolicy;
+
   /**
-   * Constructor
+   * Constructor. Usa la política de reintentos por defecto ({@link RetryPolicy#DEFAULT})
    * @param stPersistence Sistema de persistencia de estudiantes. No null
    * @param cPersistence  Sistema de persistencia de cursos. No null
    * @param phPersistence Sistema de persistencia de números de teléfono. No null
@@ -43,12 +63,28 @@ public class StudentService {
    */
   public StudentService(StudentPersistence stPersistence, CoursePersistence cPersistence,
       PhoneNumberPersistence phPersistence, AddressPersistence aPersistence) {
+    this(stPersistence, cPersistence, phPersistence, aPersistence, RetryPolicy.DEFAULT);
+  }
+
+  /**
+   * Constructor
+   * @param stPersistence Sistema de persistencia de estudiantes. No null
+   * @param cPersistence  Sistema de persistencia de cursos. No null
+   * @param phPersistence Sistema de persistencia de números de teléfono. No null
+   * @param aPersistence  Sistema de persistencia de direcciones. No null
+   * @param retryPolicy   Política de reintentos ante conflictos de concurrencia. No null
+   * @throws NullPointerException En caso de que el sistema de persistencia o la política de reintentos sean null
+   */
+  public StudentService(StudentPersistence stPersistence, CoursePersistence cPersistence,
+      PhoneNumberPersistence phPersistence, AddressPersistence aPersistence, RetryPolicy retryPolicy) {
 
-    if (stPersistence != null && cPersistence != null && phPersistence != null && aPersistence != null) {
+    if (stPersistence != null && cPersistence != null && phPersistence != null && aPersistence != null
+        && retryPolicy != null) {
       this.stPersistence = stPersistence;
       this.cPersistence = cPersistence;
       this.phPersistence = phPersistence;
       this.aPersistence = aPersistence;
+      this.retryPolicy = retryPolicy;
 
     } else {
       throw new NullPointerException();
@@ -66,27 +102,60 @@ public class StudentService {
    */
   public Integer saveOrUpdateStudent(String dni, String name, LocalDate birthdate) throws PersistenceException {
 
-    // Se verifican todos los atributos que se asocian con Student
-    if (StudentValidation.isValidDni(dni) && StudentValidation.isValidName(name)
-        && StudentValidation.isValidBirthdate(birthdate)) {
+    return METRICS.time("saveOrUpdateStudent", () -> {
+
+      // Se verifican todos los atributos que se asocian con Student
+      if (StudentValidation.isValidDni(dni) && StudentValidation.isValidName(name)
+          && StudentValidation.isValidBirthdate(birthdate)) {
+
+        return retryPolicy.execute(METRICS, "saveOrUpdateStudent", () -> UnitOfWork.execute(() -> {
 
-      // Se intenta buscar el estudiante por su DNI. Si no se encuentra, se crea uno nuevo
-      Student student = stPersistence.findByDni(dni);
+          // Se intenta buscar el estudiante por su DNI. Si no se encuentra, se crea uno nuevo
+          Student student = stPersistence.findByDni(dni, StudentFetchPlan.IDENTITY_ONLY);
 
-      if (student == null) {
-        student = new Student();
-        student.setDni(dni);
+          if (student == null) {
+            student = new Student();
+            student.setDni(dni);
+          }
+
+          // Se establecen los atributos
+          student.setName(name);
+          student.setBirthdate(birthdate);
+
+          return stPersistence.saveOrUpdateStudent(student);
+        }));
+
+      } else {
+        throw new IllegalArgumentException("Alguno de los atributos del estudiante no es correcto");
       }
+    });
+  }
+
+  /**
+   * Almacena o actualiza un conjunto de estudiantes, junto con sus direcciones y números de teléfono, en una única operación
+   * por lotes, previa validación de atributos. Está pensado para cargas masivas, como la matrícula de un curso completo
+   * @param students Estudiantes a almacenar o actualizar
+   * @return List(Integer) - IDs de los estudiantes, en el mismo orden de iteración que la colección recibida
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a datos
+   * @throws IllegalArgumentException Si alguno de los atributos de los estudiantes o de sus entidades relacionadas no es
+   *                                  correcto. En ese caso no se almacena ninguno
+   * @throws IllegalStateException    Si se invoca dentro de una unidad de trabajo
+   */
+  public List<Integer> saveStudents(Collection<Student> students) throws PersistenceException {
 
-      // Se establecen los atributos
-      student.setName(name);
-      student.setBirthdate(birthdate);
+    return METRICS.time("saveStudents", () -> {
 
-      return stPersistence.saveOrUpdateStudent(student);
+      // Se verifican todos los estudiantes antes de almacenar ninguno
+      List<ValidationResult> invalid = BulkValidation.validateStudents(students);
 
-    } else {
-      throw new IllegalArgumentException("Alguno de los atributos del estudiante no es correcto");
-    }
+      if (!invalid.isEmpty()) {
+        ValidationResult first = invalid.get(0);
+        throw new IllegalArgumentException("Alguno de los atributos del estudiante " + first.key() + " no es correcto "
+            + first.errors() + ". Estudiantes no válidos: " + invalid.size());
+      }
+
+      return stPersistence.saveStudents(students);
+    });
   }
 
   /**
@@ -97,42 +166,60 @@ public class StudentService {
    * @param city       Ciudad
    * @param postalCode Código postal
    * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos
-   * @throws IllegalArgumentException Si alguno de los atributos de Student no son correctos
+   * @throws IllegalArgumentException Si alguno de los atributos de Student no son correctos, o si la dirección ya pertenece a
+   *                                  otro estudiante
    */
   public void saveOrUpdateAddress(String dni, String street, String city, String postalCode) throws PersistenceException {
 
-    // Se verifica que existe el estudiante sobre el que relacionar la dirección
-    Student student = stPersistence.findByDni(dni);
+    METRICS.run("saveOrUpdateAddress", () -> {
 
-    if (student != null) {
+      retryPolicy.execute(METRICS, "saveOrUpdateAddress", () -> UnitOfWork.execute(() -> {
 
-      // Se verifican los datos de la dirección
-      if (AddressValidation.isValidStreetAddress(street) && AddressValidation.isValidCity(city)
-          && AddressValidation.isValidPostalCode(postalCode)) {
+        // Se verifica que existe el estudiante sobre el que relacionar la dirección
+        Student student = stPersistence.findByDni(dni, StudentFetchPlan.IDENTITY_ONLY);
 
-        // Se comprueba si ya existía previamente y sino se crea
-        Address address = aPersistence.findByStreetAndCity(street, city);
+        if (student != null) {
 
-        if (address == null) {
-          address = new Address();
-        }
+          // Se verifican los datos de la dirección
+          if (AddressValidation.isValidStreetAddress(street) && AddressValidation.isValidCity(city)
+              && AddressValidation.isValidPostalCode(postalCode)) {
 
-        // Se modifican los atributos
-        address.setCity(city);
-        address.setStreetAddress(street);
-        address.setPostalCode(postalCode);
+            // Se comprueba si ya existía previamente y sino se crea
+            Address address = aPersistence.findByStreetAndCity(street, city);
 
-        // Se persiste la dirección
-        student.setAddress(address);
-        stPersistence.saveOrUpdateStudent(student);
+            if (address == null) {
+              address = new Address();
 
-      } else {
-        throw new IllegalArgumentException("Los datos de la dirección no son válidos. No se crearán.");
-      }
+            } else {
 
-    } else {
-      throw new IllegalArgumentException("El estudiante no existe, por lo que no se creará la dirección");
-    }
+              // Una dirección pertenece a un único estudiante: si ya es de otro, no se puede asignar
+              String ownerDni = stPersistence.findDniByAddress(address);
+
+              if (ownerDni != null && !ownerDni.equals(dni)) {
+                throw new IllegalArgumentException("La dirección ya pertenece a otro estudiante. No se asignará.");
+              }
+            }
+
+            // Se modifican los atributos
+            address.setCity(city);
+            address.setStreetAddress(street);
+            address.setPostalCode(postalCode);
+
+            // Se persiste la dirección
+            student.setAddress(address);
+            stPersistence.saveOrUpdateStudent(student);
+
+          } else {
+            throw new IllegalArgumentException("Los datos de la dirección no son válidos. No se crearán.");
+          }
+
+        } else {
+          throw new IllegalArgumentException("El estudiante no existe, por lo que no se creará la dirección");
+        }
+
+        return null;
+      }));
+    });
   }
 
   /**
@@ -141,8 +228,67 @@ public class StudentService {
    * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
    */
   public List<Student> getAll() throws PersistenceException {
-    return stPersistence.getAllStudent();
+    return METRICS.time("getAll", () -> stPersistence.getAllStudent());
+  }
 
+  /**
+   * Obtiene el resumen (DNI, nombre, fecha de nacimiento, ciudad y curso) de todos los estudiantes, sin cargar entidades
+   * @return List(StudentSummary) - Resúmenes ordenados por DNI
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  public List<StudentSummary> getAllSummaries() throws PersistenceException {
+    return METRICS.time("getAllSummaries", () -> stPersistence.getAllStudentSummary());
+  }
+
+  /**
+   * Obtiene una página de resúmenes de estudiantes ordenados por DNI, sin cargar entidades
+   * @param afterDni DNI del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit    Número máximo de resúmenes de la página. Mayor que 0
+   * @return List(StudentSummary) - Vacía si no hay más estudiantes
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos
+   * @throws IllegalArgumentException Si el tamaño de página no es mayor que 0
+   */
+  public List<StudentSummary> getSummaryPage(String afterDni, int limit) throws PersistenceException {
+
+    return METRICS.time("getSummaryPage", () -> {
+
+      if (limit <= 0) {
+        throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0");
+      }
+
+      return stPersistence.getStudentSummaryPage(afterDni, limit);
+    });
+  }
+
+  /**
+   * Obtiene todos los estudiantes, junto con su dirección y curso, como un Stream que los lee de la DB bajo demanda. El
+   * consumo de memoria no depende del número de estudiantes. Debe cerrarse tras su uso, preferiblemente en un bloque
+   * try-with-resources
+   * @return Stream(Student) - Estudiantes ordenados por ID
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  public Stream<Student> streamAll() throws PersistenceException {
+    return METRICS.time("streamAll", () -> stPersistence.streamAllStudent(StudentFetchPlan.LIST_VIEW));
+  }
+
+  /**
+   * Obtiene una página de estudiantes, junto con su información relacionada, ordenados por ID
+   * @param afterId ID del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit   Número máximo de estudiantes de la página. Mayor que 0
+   * @return List(Student) - Vacía si no hay más estudiantes
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos
+   * @throws IllegalArgumentException Si el tamaño de página no es mayor que 0
+   */
+  public List<Student> getPage(Integer afterId, int limit) throws PersistenceException {
+
+    return METRICS.time("getPage", () -> {
+
+      if (limit <= 0) {
+        throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0");
+      }
+
+      return stPersistence.getPage(afterId, limit, StudentFetchPlan.FULL_DETAIL);
+    });
   }
 
   /**
@@ -154,40 +300,51 @@ public class StudentService {
    */
   public void addPhoneNumber(String dni, String number) throws PersistenceException {
 
-    // Se comprueba que el número de teléfono es válido y que alumno existe
-    if (PhoneNumberValidation.isValidNumber(number)) {
-      Student student = stPersistence.findByDni(dni);
+    METRICS.run("addPhoneNumber", () -> {
 
-      if (student != null) {
+      // Se comprueba que el número de teléfono es válido y que alumno existe
+      if (PhoneNumberValidation.isValidNumber(number)) {
 
-        // Se comprueba si el número existe y ya está asignado a otro alumno
-        PhoneNumber extractedPhoneNumber = phPersistence.findByNumber(number);
+        retryPolicy.execute(METRICS, "addPhoneNumber", () -> UnitOfWork.execute(() -> {
 
-        // Sino, se inserta como nuevo teléfono
-        if (extractedPhoneNumber == null) {
+          Student student = stPersistence.findByDni(dni, StudentFetchPlan.FULL_DETAIL);
 
-          List<Student> students = new ArrayList<>();
-          students.add(student);
+          if (student != null) {
 
-          PhoneNumber phoneNumber = new PhoneNumber(number, students);
-          student.getPhoneNumbers().add(phoneNumber);
+            // Se comprueba si el número existe y ya está asignado a otro alumno. Basta con una referencia a su ID
+            PhoneNumber extractedPhoneNumber = phPersistence.getReferenceByNumber(number);
 
-          // Si ya existe, se inserta el mismo
-        } else {
-          extractedPhoneNumber.getStudents().add(student);
-          student.getPhoneNumbers().add(extractedPhoneNumber);
-        }
+            // Si el estudiante ya tiene el número, no hay nada que guardar
+            if (extractedPhoneNumber != null && student.getPhoneNumbers().contains(extractedPhoneNumber)) {
+              return null;
+            }
 
-        stPersistence.saveOrUpdateStudent(student);
+            // Sino, se inserta como nuevo teléfono o, si ya existe, se inserta el mismo. La relación se persiste desde el
+            // lado del estudiante, por lo que los estudiantes del número no se modifican ni se cargan
+            if (extractedPhoneNumber == null) {
+
+              PhoneNumber phoneNumber = new PhoneNumber();
+              phoneNumber.setNumber(number);
+              student.getPhoneNumbers().add(phoneNumber);
+
+            } else {
+              student.getPhoneNumbers().add(extractedPhoneNumber);
+            }
+
+            stPersistence.saveOrUpdateStudent(student);
+
+          } else {
+            throw new IllegalArgumentException(
+                "El alumno sobre el que está intentando insertar un nuevo número de teléfono no existe");
+          }
+
+          return null;
+        }));
 
       } else {
-        throw new IllegalArgumentException(
-            "El alumno sobre el que está intentando insertar un nuevo número de teléfono no existe");
+        throw new IllegalArgumentException("El número de teléfono indicado no es válido");
       }
-
-    } else {
-      throw new IllegalArgumentException("El número de teléfono indicado no es válido");
-    }
+    });
   }
 
   /**
@@ -199,19 +356,22 @@ public class StudentService {
    */
   public void deletePhoneNumber(String dni, String number) throws PersistenceException {
 
-    Student student = stPersistence.findByDni(dni);
-    PhoneNumber phoneNumber = phPersistence.findByNumber(number);
+    METRICS.run("deletePhoneNumber", () -> {
 
-    // Si las entidades extraídas no son null y el estudiante tiene asignado el teléfono
-    if (student != null && phoneNumber != null) {
+      retryPolicy.execute(METRICS, "deletePhoneNumber", () -> UnitOfWork.execute(() -> {
 
-      student.getPhoneNumbers().remove(phoneNumber);
-      phoneNumber.getStudents().remove(student);
+        Student student = stPersistence.findByDni(dni, StudentFetchPlan.FULL_DETAIL);
+        PhoneNumber phoneNumber = phPersistence.findByNumber(number);
 
-      stPersistence.saveOrUpdateStudent(student);
-      phPersistence.saveOrUpdatePhoneNumber(phoneNumber);
-    }
+        // Si las entidades extraídas no son null y el estudiante tiene asignado el teléfono. La relación se persiste desde
+        // el lado del estudiante, por lo que basta con actualizar éste
+        if (student != null && phoneNumber != null && student.getPhoneNumbers().remove(phoneNumber)) {
+          stPersistence.saveOrUpdateStudent(student);
+        }
 
+        return null;
+      }));
+    });
   }
 
   /**
@@ -225,36 +385,122 @@ public class StudentService {
    */
   public void setCourse(String dni, String courseName, String school, int startingYear) throws PersistenceException {
 
-    // Se obtiene el curso y el estudiante
-    Course course = cPersistence.findByNameSchoolAndStartingYear(courseName, school, startingYear);
-    Student student = stPersistence.findByDni(dni);
+    METRICS.run("setCourse", () -> retryPolicy.execute(METRICS, "setCourse", () -> UnitOfWork.execute(() -> {
 
-    // Si el curso existe, se asigna al estudiante. Sino, se lanza un error
-    if (course != null && student != null) {
+      // Se obtiene el estudiante y una referencia al curso: sólo se necesita su ID para asignarlo
+      Course course = cPersistence.getReferenceByNameSchoolAndStartingYear(courseName, school, startingYear);
+      Student student = stPersistence.findByDni(dni, StudentFetchPlan.IDENTITY_ONLY);
 
-      student.setCourse(course);
-      stPersistence.saveOrUpdateStudent(student);
+      // Si el curso existe, se asigna al estudiante. Sino, se lanza un error
+      if (course != null && student != null) {
 
-    } else {
-      throw new IllegalArgumentException("Los valores del alumno o del curso no corresponden con datos reales");
-    }
+        student.setCourse(course);
+        stPersistence.saveOrUpdateStudent(student);
+
+      } else {
+        throw new IllegalArgumentException("Los valores del alumno o del curso no corresponden con datos reales");
+      }
+
+      return null;
+    })));
+  }
+
+  /**
+   * Matricula un conjunto de estudiantes en un curso mediante sentencias de actualización masiva en una única transacción, sin
+   * cargar los estudiantes. Está pensado para las altas de grupos completos al comienzo del curso. Los DNIs que no
+   * correspondan a ningún estudiante se ignoran
+   * @param dnis         DNIs de los estudiantes
+   * @param courseName   Nombre del curso
+   * @param school       Centro escolar donde se imparte el curso
+   * @param startingYear Año de comienzo del curso
+   * @return int - Número de estudiantes cuyo curso ha cambiado
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos
+   * @throws IllegalArgumentException En caso de que el curso no exista
+   */
+  public int enroll(Collection<String> dnis, String courseName, String school, int startingYear)
+      throws PersistenceException {
+
+    return METRICS.time("enroll", () -> {
+
+      if (dnis == null || dnis.isEmpty()) {
+        return 0;
+      }
+
+      return UnitOfWork.execute(() -> {
+
+        // Basta con una referencia al curso para asignarlo
+        Course course = cPersistence.getReferenceByNameSchoolAndStartingYear(courseName, school, startingYear);
+
+        if (course == null) {
+          throw new IllegalArgumentException("El curso indicado no corresponde con datos reales");
+        }
+
+        return stPersistence.setCourse(dnis, course);
+      });
+    });
   }
 
   /**
-   * Elimina un estudiante dado su ID. Si no se encontrase ningún estudiante con el DNI dado, no se lanza ninguna excepción
+   * Traslada todos los estudiantes de un curso a otro mediante sentencias de actualización masiva en una única transacción,
+   * sin cargar los estudiantes
+   * @param fromCourseName   Nombre del curso de origen
+   * @param fromSchool       Centro escolar del curso de origen
+   * @param fromStartingYear Año de comienzo del curso de origen
+   * @param toCourseName     Nombre del curso de destino
+   * @param toSchool         Centro escolar del curso de destino
+   * @param toStartingYear   Año de comienzo del curso de destino
+   * @return int - Número de estudiantes trasladados. Será 0 si ambos cursos son el mismo
+   * @throws PersistenceException     En caso de que ocurra un error durante el acceso a los datos
+   * @throws IllegalArgumentException En caso de que alguno de los cursos no exista
+   */
+  public int transferAll(String fromCourseName, String fromSchool, int fromStartingYear, String toCourseName,
+      String toSchool, int toStartingYear) throws PersistenceException {
+
+    return METRICS.time("transferAll", () -> UnitOfWork.execute(() -> {
+
+      Course from = cPersistence.getReferenceByNameSchoolAndStartingYear(fromCourseName, fromSchool, fromStartingYear);
+      Course to = cPersistence.getReferenceByNameSchoolAndStartingYear(toCourseName, toSchool, toStartingYear);
+
+      if (from == null || to == null) {
+        throw new IllegalArgumentException("Los valores de alguno de los cursos no corresponden con datos reales");
+      }
+
+      // Las referencias de la misma sesión a un mismo curso son la misma instancia
+      return from == to ? 0 : stPersistence.transferCourse(from, to);
+    }));
+  }
+
+  /**
+   * Elimina un estudiante dado su DNI, junto con su dirección. Si no se encontrase ningún estudiante con el DNI dado, no se
+   * lanza ninguna excepción
    * @param dni DNI del estudiante
    * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
    */
   public void deleteStudent(String dni) throws PersistenceException {
+    METRICS.run("deleteStudent", () -> retryPolicy.execute(METRICS, "deleteStudent", () -> {
+      stPersistence.deleteStudent(dni);
+      return null;
+    }));
+  }
 
-    Student student = stPersistence.findByDni(dni);
+  /**
+   * Elimina un conjunto de estudiantes dados sus DNIs, junto con sus direcciones, mediante sentencias de borrado masivo en una
+   * única transacción. Está pensado para limpiezas masivas, como las de final de curso. Los DNIs que no correspondan a ningún
+   * estudiante se ignoran
+   * @param dnis DNIs de los estudiantes
+   * @return int - Número de estudiantes eliminados
+   * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+   */
+  public int deleteStudents(Collection<String> dnis) throws PersistenceException {
 
-    if (student != null) {
+    return METRICS.time("deleteStudents", () -> {
 
-      // Se elimina el estudiante dado su dni
-      stPersistence.deleteStudent(dni);
+      if (dnis == null || dnis.isEmpty()) {
+        return 0;
+      }
 
-    }
+      return stPersistence.deleteStudents(dnis);
+    });
   }
 
 }
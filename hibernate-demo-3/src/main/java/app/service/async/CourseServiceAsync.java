@@ -0,0 +1,114 @@
+
+package app.service.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import app.entity.Course;
+import app.entity.dto.CourseEnrollment;
+import app.service.CourseService;
+import app.service.async.ServiceExecutor.ServiceCall;
+
+/**
+ * Variante asíncrona de {@link CourseService}. Cada operación se ejecuta en un hilo virtual del ejecutor y devuelve un
+ * CompletableFuture, que se completa excepcionalmente con la misma excepción que lanzaría la operación síncrona
+ */
+public class CourseServiceAsync {
+
+  /** Servicio síncrono de gestión de cursos */
+  private CourseService courseService;
+
+  /** Ejecutor de las llamadas */
+  private ServiceExecutor executor;
+
+  /**
+   * Constructor
+   * @param courseService Servicio síncrono de gestión de cursos. No null
+   * @param executor      Ejecutor de las llamadas. No null
+   * @throws NullPointerException En caso de que alguno de los parámetros sea null
+   */
+  public CourseServiceAsync(CourseService courseService, ServiceExecutor executor) {
+
+    if (courseService != null && executor != null) {
+      this.courseService = courseService;
+      this.executor = executor;
+
+    } else {
+      throw new NullPointerException();
+    }
+  }
+
+  /**
+   * Almacena o actualiza un curso. Ver {@link CourseService#save(String, String, int)}
+   * @param name         Nombre del curso
+   * @param school       Centro escolar
+   * @param startingYear Año de comienzo del curso
+   * @return CompletableFuture(Integer) - ID del curso
+   */
+  public CompletableFuture<Integer> save(String name, String school, int startingYear) {
+    return executor.submit(() -> courseService.save(name, school, startingYear));
+  }
+
+  /**
+   * Almacena o actualiza varios cursos del mismo centro y año en paralelo. Si alguna llamada falla, las que aún no han
+   * comenzado no se ejecutan, pero las ya completadas no se deshacen
+   * @param names        Nombres de los cursos
+   * @param school       Centro escolar
+   * @param startingYear Año de comienzo de los cursos
+   * @return CompletableFuture(List(Integer)) - IDs de los cursos, en el mismo orden que los nombres
+   */
+  public CompletableFuture<List<Integer>> saveAll(List<String> names, String school, int startingYear) {
+
+    List<ServiceCall<Integer>> calls = new ArrayList<>(names.size());
+
+    for (String name : names) {
+      calls.add(() -> courseService.save(name, school, startingYear));
+    }
+
+    return executor.fanOut(calls);
+  }
+
+  /**
+   * Obtiene todos los cursos. Ver {@link CourseService#getAll()}
+   * @return CompletableFuture(List(Course))
+   */
+  public CompletableFuture<List<Course>> getAll() {
+    return executor.submit(courseService::getAll);
+  }
+
+  /**
+   * Obtiene el número de estudiantes matriculados en cada curso. Ver {@link CourseService#getEnrollmentReport()}
+   * @return CompletableFuture(List(CourseEnrollment))
+   */
+  public CompletableFuture<List<CourseEnrollment>> getEnrollmentReport() {
+    return executor.submit(courseService::getEnrollmentReport);
+  }
+
+  /**
+   * Elimina un curso. Ver {@link CourseService#deleteCourse(String, String, int)}
+   * @param name         Nombre del curso
+   * @param school       Centro escolar
+   * @param startingYear Año de comienzo del curso
+   * @return CompletableFuture(Void)
+   */
+  public CompletableFuture<Void> deleteCourse(String name, String school, int startingYear) {
+
+    return executor.submit(() -> {
+      courseService.deleteCourse(name, school, startingYear);
+      return null;
+    });
+  }
+
+  /**
+   * Busca un curso. Ver {@link CourseService#findByNameSchoolAndStartingYear(String, String, int)}
+   * @param name         Nombre del curso
+   * @param school       Centro escolar
+   * @param startingYear Año de comienzo del curso
+   * @return CompletableFuture(Course) - Se completa con null si no se encuentra
+   */
+  public CompletableFuture<Course> findByNameSchoolAndStartingYear(String name, String school, int startingYear) {
+    return executor.submit(() -> courseService.findByNameSchoolAndStartingYear(name, school, startingYear));
+  }
+
+}
@@ -0,0 +1,195 @@
+
+package app.service.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import app.entity.persistence.ReadRouting;
+import app.entity.persistence.SessionFactoryProvider;
+import app.entity.persistence.exceptions.PersistenceException;
+import app.entity.persistence.pool.ConnectionPoolMetrics;
+
+/**
+ * Ejecutor de las llamadas asíncronas a los servicios. Cada llamada se ejecuta en su propio hilo virtual, y el número de
+ * llamadas en curso se limita con un semáforo al tamaño del pool de conexiones: las llamadas que superan el límite esperan
+ * en su hilo virtual, sin ocupar un hilo de plataforma ni una conexión.<br>
+ * Cada llamada se ejecuta en un hilo distinto, por lo que su unidad de trabajo (UnitOfWork) es independiente de las demás,
+ * pero se ejecuta en nombre del hilo que la envía: comparte con él la ventana de lectura de las propias escrituras
+ * ({@link ReadRouting})
+ */
+public class ServiceExecutor implements AutoCloseable {
+
+  /** Número máximo de llamadas en curso si la factoría no usa el pool de conexiones propio */
+  private static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+  /** Ejecutor con un hilo virtual por tarea */
+  private final ExecutorService executor;
+
+  /** Permisos de ejecución, uno por cada conexión del pool */
+  private final Semaphore permits;
+
+  /** Número máximo de llamadas en curso */
+  private final int maxConcurrency;
+
+  /**
+   * Llamada a un servicio
+   * @param <T> Tipo del resultado
+   */
+  @FunctionalInterface
+  public interface ServiceCall<T> {
+
+    /**
+     * Ejecuta la llamada
+     * @return T
+     * @throws PersistenceException En caso de que ocurra un error durante el acceso a los datos
+     */
+    T call() throws PersistenceException;
+  }
+
+  /**
+   * Constructor
+   * @param maxConcurrency Número máximo de llamadas en curso. Mayor que 0
+   * @throws IllegalArgumentException Si el número máximo de llamadas no es mayor que 0
+   */
+  public ServiceExecutor(int maxConcurrency) {
+
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("El número máximo de llamadas en curso debe ser mayor que 0");
+    }
+
+    this.maxConcurrency = maxConcurrency;
+    this.permits = new Semaphore(maxConcurrency, true);
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * Crea un ejecutor cuyo número máximo de llamadas en curso es el tamaño máximo del pool de conexiones de la factoría de
+   * sesiones compartida
+   * @return ServiceExecutor
+   * @throws ExceptionInInitializerError En caso de que exista un error durante la generación de la factoría de sesiones
+   */
+  public static ServiceExecutor forConnectionPool() {
+
+    ConnectionPoolMetrics metrics = SessionFactoryProvider.getConnectionPoolMetrics();
+    return new ServiceExecutor(metrics == null ? DEFAULT_MAX_CONCURRENCY : metrics.getMaximumPoolSize());
+  }
+
+  /**
+   * Obtiene el número máximo de llamadas en curso
+   * @return int
+   */
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /**
+   * Ejecuta una llamada en un hilo virtual
+   * @param <T>  Tipo del resultado
+   * @param call Llamada
+   * @return CompletableFuture(T) - Se completa con el resultado de la llamada, o excepcionalmente con la excepción que lance
+   *         (PersistenceException, IllegalArgumentException, etc.) sin envolver
+   */
+  public <T> CompletableFuture<T> submit(ServiceCall<T> call) {
+    return submit(call, null);
+  }
+
+  /**
+   * Ejecuta un conjunto de llamadas independientes en paralelo. Si alguna falla, las que aún no han comenzado no se ejecutan
+   * y el resultado se completa excepcionalmente con la primera excepción, sin esperar al resto
+   * @param <T>   Tipo del resultado de cada llamada
+   * @param calls Llamadas
+   * @return CompletableFuture(List(T)) - Resultados en el mismo orden que las llamadas
+   */
+  public <T> CompletableFuture<List<T>> fanOut(List<ServiceCall<T>> calls) {
+
+    AtomicBoolean failed = new AtomicBoolean();
+    List<CompletableFuture<T>> futures = new ArrayList<>(calls.size());
+
+    for (ServiceCall<T> call : calls) {
+      futures.add(submit(call, failed));
+    }
+
+    CompletableFuture<List<T>> result = new CompletableFuture<>();
+
+    // Se propaga el primer fallo sin esperar al resto de llamadas
+    for (CompletableFuture<T> future : futures) {
+      future.whenComplete((value, error) -> {
+        if (error != null) {
+          result.completeExceptionally(error);
+        }
+      });
+    }
+
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+
+      List<T> values = new ArrayList<>(futures.size());
+      for (CompletableFuture<T> future : futures) {
+        values.add(future.join());
+      }
+      result.complete(values);
+    });
+
+    return result;
+  }
+
+  /**
+   * Deja de aceptar llamadas y espera a que terminen las que están en curso
+   */
+  @Override
+  public void close() {
+    executor.close();
+  }
+
+  /**
+   * Ejecuta una llamada en un hilo virtual, una vez obtenido un permiso de ejecución
+   * @param <T>    Tipo del resultado
+   * @param call   Llamada
+   * @param failed Indicador de fallo de un grupo de llamadas. Si está activo al obtener el permiso, la llamada no se ejecuta.
+   *               Puede ser null
+   * @return CompletableFuture(T)
+   */
+  private <T> CompletableFuture<T> submit(ServiceCall<T> call, AtomicBoolean failed) {
+
+    CompletableFuture<T> future = new CompletableFuture<>();
+    Object caller = ReadRouting.currentCaller();
+
+    executor.execute(() -> {
+
+      try {
+        permits.acquire();
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.completeExceptionally(e);
+        return;
+      }
+
+      try {
+        if (failed != null && failed.get()) {
+          future.cancel(false);
+
+        } else {
+          future.complete(ReadRouting.callAs(caller, call::call));
+        }
+
+      } catch (Exception | Error e) {
+
+        if (failed != null) {
+          failed.set(true);
+        }
+        future.completeExceptionally(e);
+
+      } finally {
+        permits.release();
+      }
+    });
+
+    return future;
+  }
+
+}
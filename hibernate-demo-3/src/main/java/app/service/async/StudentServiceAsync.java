@@ -0,0 +1,245 @@
+
+package app.service.async;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import app.entity.Address;
+import app.entity.Student;
+import app.entity.dto.StudentSummary;
+import app.service.StudentService;
+import app.service.async.ServiceExecutor.ServiceCall;
+
+/**
+ * Variante asíncrona de {@link StudentService}. Cada operación se ejecuta en un hilo virtual del ejecutor y devuelve un
+ * CompletableFuture, que se completa excepcionalmente con la misma excepción que lanzaría la operación síncrona
+ * (PersistenceException o IllegalArgumentException)
+ */
+public class StudentServiceAsync {
+
+  /** Servicio síncrono de gestión de estudiantes */
+  private StudentService studentService;
+
+  /** Ejecutor de las llamadas */
+  private ServiceExecutor executor;
+
+  /**
+   * Constructor
+   * @param studentService Servicio síncrono de gestión de estudiantes. No null
+   * @param executor       Ejecutor de las llamadas. No null
+   * @throws NullPointerException En caso de que alguno de los parámetros sea null
+   */
+  public StudentServiceAsync(StudentService studentService, ServiceExecutor executor) {
+
+    if (studentService != null && executor != null) {
+      this.studentService = studentService;
+      this.executor = executor;
+
+    } else {
+      throw new NullPointerException();
+    }
+  }
+
+  /**
+   * Almacena o actualiza un estudiante. Ver {@link StudentService#saveOrUpdateStudent(String, String, LocalDate)}
+   * @param dni       DNI del estudiante
+   * @param name      Nombre del estudiante
+   * @param birthdate Fecha de nacimiento del estudiante
+   * @return CompletableFuture(Integer) - ID del estudiante
+   */
+  public CompletableFuture<Integer> saveOrUpdateStudent(String dni, String name, LocalDate birthdate) {
+    return executor.submit(() -> studentService.saveOrUpdateStudent(dni, name, birthdate));
+  }
+
+  /**
+   * Almacena o actualiza un conjunto de estudiantes en una única operación por lotes. Ver
+   * {@link StudentService#saveStudents(Collection)}
+   * @param students Estudiantes a almacenar o actualizar
+   * @return CompletableFuture(List(Integer)) - IDs de los estudiantes
+   */
+  public CompletableFuture<List<Integer>> saveStudents(Collection<Student> students) {
+    return executor.submit(() -> studentService.saveStudents(students));
+  }
+
+  /**
+   * Almacena o actualiza varios estudiantes, junto con su dirección, en paralelo: cada estudiante se almacena en su propia
+   * llamada, seguido de su dirección si la tiene. Si alguna llamada falla, las que aún no han comenzado no se ejecutan, pero
+   * las ya completadas no se deshacen
+   * @param students Estudiantes, con su DNI, nombre, fecha de nacimiento y, opcionalmente, su dirección
+   * @return CompletableFuture(List(Integer)) - IDs de los estudiantes, en el mismo orden de iteración que la colección
+   */
+  public CompletableFuture<List<Integer>> saveStudentsWithAddress(Collection<Student> students) {
+
+    List<ServiceCall<Integer>> calls = new ArrayList<>(students.size());
+
+    for (Student student : students) {
+      calls.add(() -> {
+
+        Integer id = studentService.saveOrUpdateStudent(student.getDni(), student.getName(), student.getBirthdate());
+        Address address = student.getAddress();
+
+        if (address != null) {
+          studentService.saveOrUpdateAddress(student.getDni(), address.getStreetAddress(), address.getCity(),
+              address.getPostalCode());
+        }
+
+        return id;
+      });
+    }
+
+    return executor.fanOut(calls);
+  }
+
+  /**
+   * Almacena o actualiza la dirección de un estudiante. Ver
+   * {@link StudentService#saveOrUpdateAddress(String, String, String, String)}
+   * @param dni        DNI del estudiante
+   * @param street     Descripción completa de la dirección
+   * @param city       Ciudad
+   * @param postalCode Código postal
+   * @return CompletableFuture(Void)
+   */
+  public CompletableFuture<Void> saveOrUpdateAddress(String dni, String street, String city, String postalCode) {
+
+    return executor.submit(() -> {
+      studentService.saveOrUpdateAddress(dni, street, city, postalCode);
+      return null;
+    });
+  }
+
+  /**
+   * Obtiene todos los estudiantes junto con su información relacionada. Ver {@link StudentService#getAll()}
+   * @return CompletableFuture(List(Student))
+   */
+  public CompletableFuture<List<Student>> getAll() {
+    return executor.submit(studentService::getAll);
+  }
+
+  /**
+   * Obtiene el resumen de todos los estudiantes. Ver {@link StudentService#getAllSummaries()}
+   * @return CompletableFuture(List(StudentSummary))
+   */
+  public CompletableFuture<List<StudentSummary>> getAllSummaries() {
+    return executor.submit(studentService::getAllSummaries);
+  }
+
+  /**
+   * Obtiene una página de resúmenes de estudiantes. Ver {@link StudentService#getSummaryPage(String, int)}
+   * @param afterDni DNI del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit    Número máximo de resúmenes de la página. Mayor que 0
+   * @return CompletableFuture(List(StudentSummary))
+   */
+  public CompletableFuture<List<StudentSummary>> getSummaryPage(String afterDni, int limit) {
+    return executor.submit(() -> studentService.getSummaryPage(afterDni, limit));
+  }
+
+  /**
+   * Obtiene una página de estudiantes. Ver {@link StudentService#getPage(Integer, int)}
+   * @param afterId ID del último estudiante de la página anterior. Null para obtener la primera página
+   * @param limit   Número máximo de estudiantes de la página. Mayor que 0
+   * @return CompletableFuture(List(Student))
+   */
+  public CompletableFuture<List<Student>> getPage(Integer afterId, int limit) {
+    return executor.submit(() -> studentService.getPage(afterId, limit));
+  }
+
+  /**
+   * Añade un número de teléfono a un estudiante. Ver {@link StudentService#addPhoneNumber(String, String)}
+   * @param dni    DNI del estudiante
+   * @param number Nuevo número de teléfono
+   * @return CompletableFuture(Void)
+   */
+  public CompletableFuture<Void> addPhoneNumber(String dni, String number) {
+
+    return executor.submit(() -> {
+      studentService.addPhoneNumber(dni, number);
+      return null;
+    });
+  }
+
+  /**
+   * Elimina un número de teléfono de un estudiante. Ver {@link StudentService#deletePhoneNumber(String, String)}
+   * @param dni    DNI del estudiante
+   * @param number Número de teléfono
+   * @return CompletableFuture(Void)
+   */
+  public CompletableFuture<Void> deletePhoneNumber(String dni, String number) {
+
+    return executor.submit(() -> {
+      studentService.deletePhoneNumber(dni, number);
+      return null;
+    });
+  }
+
+  /**
+   * Establece el curso de un estudiante. Ver {@link StudentService#setCourse(String, String, String, int)}
+   * @param dni          DNI del estudiante
+   * @param courseName   Nombre del curso
+   * @param school       Centro escolar donde se imparte el curso
+   * @param startingYear Año de comienzo del curso
+   * @return CompletableFuture(Void)
+   */
+  public CompletableFuture<Void> setCourse(String dni, String courseName, String school, int startingYear) {
+
+    return executor.submit(() -> {
+      studentService.setCourse(dni, courseName, school, startingYear);
+      return null;
+    });
+  }
+
+  /**
+   * Matricula un conjunto de estudiantes en un curso. Ver {@link StudentService#enroll(Collection, String, String, int)}
+   * @param dnis         DNIs de los estudiantes
+   * @param courseName   Nombre del curso
+   * @param school       Centro escolar donde se imparte el curso
+   * @param startingYear Año de comienzo del curso
+   * @return CompletableFuture(Integer) - Número de estudiantes cuyo curso ha cambiado
+   */
+  public CompletableFuture<Integer> enroll(Collection<String> dnis, String courseName, String school, int startingYear) {
+    return executor.submit(() -> studentService.enroll(dnis, courseName, school, startingYear));
+  }
+
+  /**
+   * Traslada todos los estudiantes de un curso a otro. Ver
+   * {@link StudentService#transferAll(String, String, int, String, String, int)}
+   * @param fromCourseName   Nombre del curso de origen
+   * @param fromSchool       Centro escolar del curso de origen
+   * @param fromStartingYear Año de comienzo del curso de origen
+   * @param toCourseName     Nombre del curso de destino
+   * @param toSchool         Centro escolar del curso de destino
+   * @param toStartingYear   Año de comienzo del curso de destino
+   * @return CompletableFuture(Integer) - Número de estudiantes trasladados
+   */
+  public CompletableFuture<Integer> transferAll(String fromCourseName, String fromSchool, int fromStartingYear,
+      String toCourseName, String toSchool, int toStartingYear) {
+
+    return executor.submit(() -> studentService.transferAll(fromCourseName, fromSchool, fromStartingYear, toCourseName,
+        toSchool, toStartingYear));
+  }
+
+  /**
+   * Elimina un estudiante. Ver {@link StudentService#deleteStudent(String)}
+   * @param dni DNI del estudiante
+   * @return CompletableFuture(Void)
+   */
+  public CompletableFuture<Void> deleteStudent(String dni) {
+
+    return executor.submit(() -> {
+      studentService.deleteStudent(dni);
+      return null;
+    });
+  }
+
+  /**
+   * Elimina un conjunto de estudiantes. Ver {@link StudentService#deleteStudents(Collection)}
+   * @param dnis DNIs de los estudiantes
+   * @return CompletableFuture(Integer) - Número de estudiantes eliminados
+   */
+  public CompletableFuture<Integer> deleteStudents(Collection<String> dnis) {
+    return executor.submit(() -> studentService.deleteStudents(dnis));
+  }
+
+}
@@ -15,8 +15,8 @@ public class AddressValidation {
   /** Longitud máxima del nombre de la ciudad */
   private static final int CITY_MAX_LENGTH = 50;
 
-  /** Expresión regular que debe cumplir un código postal */
-  private static final String POSTAL_CODE_REGEX = "([0-4]\\d{4})|([5][012]\\d{3})";
+  /** Número de dígitos de un código postal */
+  private static final int POSTAL_CODE_LENGTH = 5;
 
   /** Constructor privado para evitar instanciación de clase */
   private AddressValidation() {
@@ -41,12 +41,28 @@ public class AddressValidation {
   }
 
   /**
-   * Verifica si el código postal de la dirección es no null y verifica la expresión regular
+   * Verifica si el código postal de la dirección es no null y está formado por 5 dígitos entre 00000 y 52999 (prefijo de
+   * provincia entre 00 y 52)
    * @param postalCode Código postal
    * @return boolean
    */
   public static boolean isValidPostalCode(String postalCode) {
-    return postalCode != null && postalCode.matches(POSTAL_CODE_REGEX);
+
+    if (postalCode == null || postalCode.length() != POSTAL_CODE_LENGTH) {
+      return false;
+    }
+
+    for (int i = 0; i < POSTAL_CODE_LENGTH; i++) {
+      char c = postalCode.charAt(i);
+
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+
+    // El prefijo de provincia no puede superar 52
+    char first = postalCode.charAt(0);
+    return first <= '4' || first == '5' && postalCode.charAt(1) <= '2';
   }
 
   /**
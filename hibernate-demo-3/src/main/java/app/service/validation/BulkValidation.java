@@ -0,0 +1,139 @@
+
+package app.service.validation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import app.entity.Address;
+import app.entity.PhoneNumber;
+import app.entity.Student;
+
+/**
+ * Validación por lotes de estudiantes junto con su dirección y sus números de teléfono. Los lotes grandes se validan en
+ * paralelo. Sólo se reservan objetos para los registros no válidos, por lo que validar un lote correcto no genera basura
+ */
+public class BulkValidation {
+
+  /** Tamaño de lote a partir del cual la validación se reparte entre varios hilos */
+  private static final int PARALLEL_THRESHOLD = 2048;
+
+  /** Constructor privado para evitar instanciación de clase */
+  private BulkValidation() {
+  }
+
+  /**
+   * Valida un lote de estudiantes, incluyendo su dirección y sus números de teléfono si los tienen
+   * @param students Estudiantes
+   * @return List(ValidationResult) - Resultados de los estudiantes no válidos, ordenados por posición. Vacía si todos son
+   *         válidos
+   */
+  public static List<ValidationResult> validateStudents(Collection<Student> students) {
+
+    List<Student> batch = students instanceof List<Student> list ? list : new ArrayList<>(students);
+
+    LocalDate today = LocalDate.now();
+
+    IntStream indexes = IntStream.range(0, batch.size());
+    if (batch.size() >= PARALLEL_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+
+    // Primero se comprueba cada estudiante sin reservar memoria. Sólo se detallan los errores de los no válidos
+    return indexes.filter(i -> !isValid(batch.get(i), today)).mapToObj(i -> {
+      Student student = batch.get(i);
+      return new ValidationResult(i, student == null ? null : student.getDni(), errorsOf(student, today));
+    }).toList();
+  }
+
+  /**
+   * Obtiene los errores de validación de un estudiante, incluyendo su dirección y sus números de teléfono si los tiene
+   * @param student Estudiante
+   * @return Set(ValidationError) - Vacío si es válido
+   */
+  public static Set<ValidationError> errorsOf(Student student) {
+    return errorsOf(student, LocalDate.now());
+  }
+
+  /**
+   * Obtiene los errores de validación de un estudiante respecto a la fecha actual dada
+   * @param student Estudiante
+   * @param today   Fecha actual
+   * @return Set(ValidationError) - Vacío si es válido
+   */
+  private static Set<ValidationError> errorsOf(Student student, LocalDate today) {
+
+    Set<ValidationError> errors = EnumSet.noneOf(ValidationError.class);
+
+    if (student == null) {
+      errors.add(ValidationError.INVALID_DNI);
+      return errors;
+    }
+
+    addIf(errors, !StudentValidation.isValidDni(student.getDni()), ValidationError.INVALID_DNI);
+    addIf(errors, !StudentValidation.isValidName(student.getName()), ValidationError.INVALID_NAME);
+    addIf(errors, !StudentValidation.isValidBirthdate(student.getBirthdate(), today),
+        ValidationError.INVALID_BIRTHDATE);
+
+    Address address = student.getAddress();
+    if (address != null) {
+      addIf(errors, !AddressValidation.isValidStreetAddress(address.getStreetAddress()),
+          ValidationError.INVALID_STREET_ADDRESS);
+      addIf(errors, !AddressValidation.isValidCity(address.getCity()), ValidationError.INVALID_CITY);
+      addIf(errors, !AddressValidation.isValidPostalCode(address.getPostalCode()), ValidationError.INVALID_POSTAL_CODE);
+    }
+
+    if (student.getPhoneNumbers() != null) {
+      for (PhoneNumber phoneNumber : student.getPhoneNumbers()) {
+        addIf(errors, phoneNumber == null || !PhoneNumberValidation.isValidPhoneNumber(phoneNumber),
+            ValidationError.INVALID_PHONE_NUMBER);
+      }
+    }
+
+    return errors;
+  }
+
+  /**
+   * Comprueba si un estudiante, junto con su dirección y sus números de teléfono, es válido
+   * @param student Estudiante
+   * @param today   Fecha actual
+   * @return boolean
+   */
+  private static boolean isValid(Student student, LocalDate today) {
+
+    if (student == null || !StudentValidation.isValidDni(student.getDni())
+        || !StudentValidation.isValidName(student.getName())
+        || !StudentValidation.isValidBirthdate(student.getBirthdate(), today)
+        || student.getAddress() != null && !AddressValidation.isValidAddress(student.getAddress())) {
+      return false;
+    }
+
+    if (student.getPhoneNumbers() != null) {
+      for (PhoneNumber phoneNumber : student.getPhoneNumbers()) {
+        if (phoneNumber == null || !PhoneNumberValidation.isValidPhoneNumber(phoneNumber)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Añade un error al conjunto si se cumple la condición
+   * @param errors    Errores
+   * @param condition Condición
+   * @param error     Error
+   */
+  private static void addIf(Set<ValidationError> errors, boolean condition, ValidationError error) {
+
+    if (condition) {
+      errors.add(error);
+    }
+  }
+
+}
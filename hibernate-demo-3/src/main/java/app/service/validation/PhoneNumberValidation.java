@@ -9,8 +9,8 @@ import app.entity.PhoneNumber;
  */
 public class PhoneNumberValidation {
 
-  /** Expresión regular para el número */
-  private static final String NUMBER_REGEX = "[6789]\\d{8}";
+  /** Número de dígitos de un número de teléfono */
+  private static final int NUMBER_LENGTH = 9;
 
   /** Constructor privado que evita instanciación de clase */
   private PhoneNumberValidation() {
@@ -22,7 +22,20 @@ public class PhoneNumberValidation {
    * @return boolean
    */
   public static boolean isValidNumber(String number) {
-    return number != null && number.matches(NUMBER_REGEX);
+
+    if (number == null || number.length() != NUMBER_LENGTH || number.charAt(0) < '6' || number.charAt(0) > '9') {
+      return false;
+    }
+
+    for (int i = 1; i < NUMBER_LENGTH; i++) {
+      char c = number.charAt(i);
+
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+
+    return true;
   }
 
   /**
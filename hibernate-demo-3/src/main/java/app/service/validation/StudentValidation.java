@@ -11,19 +11,16 @@ import app.entity.Student;
  */
 public class StudentValidation {
 
-  /** Expresión regular para la comprobación del DNI. 8 dígitos y una letra asociada (letras I, O no son válidas) */
-  private static final String REGEX_DNI = "\\d{8}[ABCDEFGHJLMNPQRSTVWXYZ]";
+  /** Número de dígitos del DNI */
+  private static final int DNI_DIGITS = 8;
+
+  /** Letras admitidas al final del DNI (I, K, O y U no son válidas) */
+  private static final String DNI_ACCEPTED_LETTERS = "ABCDEFGHJLMNPQRSTVWXYZ";
 
   /** Letras posibles para el DNI, en orden según el resto del número asociado al DNI entre 23 */
   private static final char[] DNI_LETTERS = { 'T', 'R', 'W', 'A', 'G', 'M', 'Y', 'F', 'P', 'D', 'X', 'B', 'N', 'J', 'Z', 'S',
       'Q', 'V', 'H', 'L', 'C', 'K', 'E' };
 
-  /**
-   * Expresión regular para la comprobación del nombre. Debe ser una cadena de caracteres alfabéticos que puede contener
-   * espacios
-   */
-  private static final String REGEX_NAME = "[A-ZÑa-zñ\\s]*";
-
   /** Longitud máxima del nombre del estudiante */
   private static final int NAME_MAX_LENGTH = 100;
 
@@ -39,17 +36,25 @@ public class StudentValidation {
    */
   public static boolean isValidDni(String dni) {
 
-    if (dni != null && dni.matches(REGEX_DNI)) {
+    if (dni == null || dni.length() != DNI_DIGITS + 1) {
+      return false;
+    }
+
+    // Se recorren los dígitos calculando el número asociado al DNI, sin crear cadenas intermedias
+    int dniNumber = 0;
 
-      // Se comprueba la letra del dni
-      int dniNumber = Integer.parseInt(dni.substring(0, dni.length() - 1));
-      char associatedLetter = DNI_LETTERS[dniNumber % DNI_LETTERS.length];
+    for (int i = 0; i < DNI_DIGITS; i++) {
+      char c = dni.charAt(i);
 
-      return associatedLetter == dni.charAt(dni.length() - 1);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+      dniNumber = dniNumber * 10 + (c - '0');
     }
 
-    // Si se llega aquí, es falso
-    return false;
+    // Se comprueba la letra del dni
+    char letter = dni.charAt(DNI_DIGITS);
+    return DNI_ACCEPTED_LETTERS.indexOf(letter) >= 0 && DNI_LETTERS[dniNumber % DNI_LETTERS.length] == letter;
   }
 
   /**
@@ -59,7 +64,31 @@ public class StudentValidation {
    * @return boolean
    */
   public static boolean isValidName(String name) {
-    return (name != null && name.length() <= NAME_MAX_LENGTH && !name.isBlank() && name.matches(REGEX_NAME));
+
+    if (name == null || name.length() > NAME_MAX_LENGTH || name.isBlank()) {
+      return false;
+    }
+
+    // Sólo letras del alfabeto español (A-Z, Ñ, en mayúscula o minúscula) y espacios en blanco
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+
+      if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c == 'Ñ' || c == 'ñ' || isWhitespace(c))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Comprueba si un carácter es un espacio en blanco: espacio, tabulador, salto de línea, tabulador vertical, salto de
+   * página o retorno de carro
+   * @param c Carácter
+   * @return boolean
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c >= '\t' && c <= '\r';
   }
 
   /**
@@ -68,7 +97,18 @@ public class StudentValidation {
    * @return boolean
    */
   public static boolean isValidBirthdate(LocalDate birthdate) {
-    return birthdate != null && birthdate.isBefore(LocalDate.now());
+    return isValidBirthdate(birthdate, LocalDate.now());
+  }
+
+  /**
+   * Verifica que una fecha de nacimiento sea anterior a la fecha actual dada. Permite obtener la fecha actual una única vez
+   * al validar un lote
+   * @param birthdate Fecha de nacimiento
+   * @param today     Fecha actual
+   * @return boolean
+   */
+  static boolean isValidBirthdate(LocalDate birthdate, LocalDate today) {
+    return birthdate != null && birthdate.isBefore(today);
   }
 
   /**
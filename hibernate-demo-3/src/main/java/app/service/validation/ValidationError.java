@@ -0,0 +1,28 @@
+
+package app.service.validation;
+
+/** Códigos de error de validación de los atributos de un registro */
+public enum ValidationError {
+
+  /** DNI nulo, mal formado o con una letra que no corresponde al número */
+  INVALID_DNI,
+
+  /** Nombre del estudiante nulo, vacío, demasiado largo o con caracteres no alfabéticos */
+  INVALID_NAME,
+
+  /** Fecha de nacimiento nula o no anterior a la actual */
+  INVALID_BIRTHDATE,
+
+  /** Descripción de la dirección nula, vacía o demasiado larga */
+  INVALID_STREET_ADDRESS,
+
+  /** Ciudad nula, vacía o demasiado larga */
+  INVALID_CITY,
+
+  /** Código postal nulo o fuera de rango */
+  INVALID_POSTAL_CODE,
+
+  /** Número de teléfono nulo, mal formado o con un prefijo distinto de 6, 7, 8 o 9 */
+  INVALID_PHONE_NUMBER
+
+}
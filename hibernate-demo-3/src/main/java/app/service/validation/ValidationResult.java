@@ -0,0 +1,19 @@
+
+package app.service.validation;
+
+import java.util.Set;
+
+/**
+ * Resultado de la validación de un registro no válido dentro de un lote
+ * @param index  Posición del registro en el lote
+ * @param key    Clave del registro (por ejemplo, el DNI del estudiante), para identificarlo en los mensajes
+ * @param errors Errores encontrados. Nunca vacío
+ */
+public record ValidationResult(int index, String key, Set<ValidationError> errors) {
+
+  @Override
+  public String toString() {
+    return String.format("Index: %d, Key: %s, Errors: %s", index, key, errors);
+  }
+
+}
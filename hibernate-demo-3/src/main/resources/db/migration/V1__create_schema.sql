@@ -0,0 +1,55 @@
+-- Esquema inicial: tablas, claves primarias y claves ajenas de las entidades de app.entity
+-- Compatible con MySQL y con H2 en modo MySQL
+
+CREATE TABLE T_Address (
+  id INT NOT NULL,
+  street_address VARCHAR(255) NOT NULL,
+  city VARCHAR(50) NOT NULL,
+  postal_code CHAR(5) NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE T_Course (
+  id INT NOT NULL,
+  name VARCHAR(80) NOT NULL,
+  school VARCHAR(100) NOT NULL,
+  starting_year INT NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE T_Phone_Number (
+  id INT NOT NULL,
+  phone_number CHAR(9) NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE T_Student (
+  id INT NOT NULL,
+  dni CHAR(9) NOT NULL,
+  name VARCHAR(100) NOT NULL,
+  birthdate DATE NOT NULL,
+  address_id INT,
+  course_id INT,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_student_address FOREIGN KEY (address_id) REFERENCES T_Address (id),
+  CONSTRAINT fk_student_course FOREIGN KEY (course_id) REFERENCES T_Course (id)
+);
+
+CREATE TABLE T_Student_Phone_Number (
+  student_id INT NOT NULL,
+  phone_number_id INT NOT NULL,
+  CONSTRAINT fk_student_phone_number_student FOREIGN KEY (student_id) REFERENCES T_Student (id),
+  CONSTRAINT fk_student_phone_number_phone FOREIGN KEY (phone_number_id) REFERENCES T_Phone_Number (id)
+);
+
+-- Tabla de generación de identificadores (DbConstants.ID_GENERATOR_TABLE), con una fila por tabla
+CREATE TABLE T_Id_Generator (
+  sequence_name VARCHAR(255) NOT NULL,
+  next_val BIGINT,
+  PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO T_Id_Generator (sequence_name, next_val) VALUES ('T_Student', 0);
+INSERT INTO T_Id_Generator (sequence_name, next_val) VALUES ('T_Address', 0);
+INSERT INTO T_Id_Generator (sequence_name, next_val) VALUES ('T_Phone_Number', 0);
+INSERT INTO T_Id_Generator (sequence_name, next_val) VALUES ('T_Course', 0);
@@ -0,0 +1,20 @@
+-- Índices únicos sobre las claves naturales. Dan soporte a las búsquedas de los sistemas de persistencia
+-- (findByDni, findByNumber, findByNameSchoolAndStartingYear, findByStreetAndCity), que de otro modo recorren la tabla entera
+
+CREATE UNIQUE INDEX uk_student_dni ON T_Student (dni);
+
+CREATE UNIQUE INDEX uk_phone_number_number ON T_Phone_Number (phone_number);
+
+CREATE UNIQUE INDEX uk_course_name_school_year ON T_Course (name, school, starting_year);
+
+CREATE UNIQUE INDEX uk_address_street_city ON T_Address (street_address, city);
+
+-- Relación uno a uno entre estudiante y dirección
+CREATE UNIQUE INDEX uk_student_address ON T_Student (address_id);
+
+-- Índices sobre las claves ajenas, usados al navegar las relaciones y al borrar las filas referenciadas
+CREATE INDEX idx_student_course ON T_Student (course_id);
+
+CREATE INDEX idx_student_phone_number_student ON T_Student_Phone_Number (student_id, phone_number_id);
+
+CREATE INDEX idx_student_phone_number_phone ON T_Student_Phone_Number (phone_number_id, student_id);
@@ -0,0 +1,9 @@
+-- Columnas de versión para el bloqueo optimista (@Version). Las filas existentes comienzan en la versión 0
+
+ALTER TABLE T_Student ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE T_Address ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE T_Course ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE T_Phone_Number ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+-- Clave primaria de la tabla de unión entre estudiantes y números de teléfono. La relación es un conjunto, por lo que cada
+-- par (estudiante, número) aparece una sola vez. Antes se eliminan los pares repetidos que pudo dejar la relación anterior
+
+CREATE TABLE T_Student_Phone_Number_Distinct AS SELECT DISTINCT student_id, phone_number_id FROM T_Student_Phone_Number;
+
+DELETE FROM T_Student_Phone_Number;
+
+INSERT INTO T_Student_Phone_Number (student_id, phone_number_id)
+SELECT student_id, phone_number_id FROM T_Student_Phone_Number_Distinct;
+
+DROP TABLE T_Student_Phone_Number_Distinct;
+
+ALTER TABLE T_Student_Phone_Number ADD PRIMARY KEY (student_id, phone_number_id);
+
+-- La clave primaria cubre las búsquedas por estudiante, por lo que su índice deja de ser necesario
+DROP INDEX idx_student_phone_number_student ON T_Student_Phone_Number;
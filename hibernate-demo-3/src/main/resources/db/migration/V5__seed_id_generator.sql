@@ -0,0 +1,34 @@
+-- Tabla de generación de identificadores para las bases de datos creadas con hibernate.hbm2ddl.auto, que se marcan con la
+-- versión 1 sin ejecutar V1 y por tanto no la tienen. Se crea si falta, con una fila por tabla, y cada fila se sitúa por
+-- encima del mayor ID existente. El optimizador pooled entrega IDs hasta 50 (DbConstants.ID_ALLOCATION_SIZE) por debajo
+-- del valor almacenado, por lo que el valor es el mayor ID más 50. En las bases de datos creadas por V1 no cambia nada
+
+CREATE TABLE IF NOT EXISTS T_Id_Generator (
+  sequence_name VARCHAR(255) NOT NULL,
+  next_val BIGINT,
+  PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO T_Id_Generator (sequence_name, next_val)
+SELECT 'T_Student', 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM T_Id_Generator WHERE sequence_name = 'T_Student');
+
+INSERT INTO T_Id_Generator (sequence_name, next_val)
+SELECT 'T_Address', 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM T_Id_Generator WHERE sequence_name = 'T_Address');
+
+INSERT INTO T_Id_Generator (sequence_name, next_val)
+SELECT 'T_Phone_Number', 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM T_Id_Generator WHERE sequence_name = 'T_Phone_Number');
+
+INSERT INTO T_Id_Generator (sequence_name, next_val)
+SELECT 'T_Course', 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM T_Id_Generator WHERE sequence_name = 'T_Course');
+
+UPDATE T_Id_Generator SET next_val = (SELECT MAX(id) + 50 FROM T_Student)
+WHERE sequence_name = 'T_Student' AND (next_val IS NULL OR next_val < (SELECT COALESCE(MAX(id) + 50, 0) FROM T_Student));
+
+UPDATE T_Id_Generator SET next_val = (SELECT MAX(id) + 50 FROM T_Address)
+WHERE sequence_name = 'T_Address' AND (next_val IS NULL OR next_val < (SELECT COALESCE(MAX(id) + 50, 0) FROM T_Address));
+
+UPDATE T_Id_Generator SET next_val = (SELECT MAX(id) + 50 FROM T_Phone_Number)
+WHERE sequence_name = 'T_Phone_Number' AND (next_val IS NULL OR next_val < (SELECT COALESCE(MAX(id) + 50, 0) FROM T_Phone_Number));
+
+UPDATE T_Id_Generator SET next_val = (SELECT MAX(id) + 50 FROM T_Course)
+WHERE sequence_name = 'T_Course' AND (next_val IS NULL OR next_val < (SELECT COALESCE(MAX(id) + 50, 0) FROM T_Course));